@@ -0,0 +1,59 @@
+package com.cypress;
+
+import com.cypress.importer.BulkImportOptions;
+import com.cypress.importer.ImportReport;
+import com.cypress.importer.UserBulkImporter;
+import com.cypress.persistence.cache.UserExistenceFilter;
+import com.cypress.persistence.converter.UserPoConverter;
+import com.cypress.persistence.dao.IUserDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户批量导入命令行入口
+ * 使用与 Application 相同的配置连接数据库和Redis，但不启动Web服务；开启分片时按分片写入并同时写入全局索引
+ * 用法：java -cp api-1.0-SNAPSHOT.jar -Dloader.main=com.cypress.BulkImportApplication org.springframework.boot.loader.PropertiesLauncher
+ *      --file=users.csv [--format=csv|ndjson] [--chunk-size=1000] [--hash-threads=0] [--max-in-flight-chunks=4]
+ *      [--checkpoint=users.csv.checkpoint] [--restart=false] [--progress-interval=10]
+ * 中断后以相同参数重新运行即从检查点继续；其他 --key=value 参数原样传给应用，可用于覆盖应用配置
+ */
+public class BulkImportApplication {
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportApplication.class);
+
+    public static void main(String[] args) {
+        List<String> applicationArgs = new ArrayList<>();
+        BulkImportOptions options = BulkImportOptions.parse(args, applicationArgs);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                // 导入进程不处理查询，不需要构建存在性过滤器
+                .properties("user.existence-filter.enabled=false")
+                .run(applicationArgs.toArray(new String[0]));
+        int exitCode = 0;
+        try {
+            UserBulkImporter importer = new UserBulkImporter(context.getBean(IUserDao.class),
+                    context.getBean(UserPoConverter.class), context.getBean(UserExistenceFilter.class), options);
+            ImportReport report = importer.run();
+            report.print(System.out);
+        } catch (Exception e) {
+            logger.error("导入失败，以相同参数重新运行可从检查点继续", e);
+            exitCode = 1;
+        } finally {
+            // 每批写入后已发布新增的userId，结束时再通知在线节点重建一次，弥补丢失的通知
+            try {
+                context.getBean(UserExistenceFilter.class).requestRebuild();
+            } catch (Exception e) {
+                logger.warn("发布存在性过滤器重建通知失败，在线节点将在下次定时重建时同步", e);
+            }
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
@@ -0,0 +1,42 @@
+package com.cypress.api;
+
+import com.cypress.utils.JwtKeyManager;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWK Set控制器 - 接口层
+ * 公开令牌验签公钥，其他服务据此在本地验证令牌，不必调用本服务
+ */
+@RestController
+@Api(tags = "令牌公钥")
+public class JwksController {
+
+    @Autowired
+    private JwtKeyManager jwtKeyManager;
+
+    // 公钥在其他服务中的缓存时间，新公钥需提前至少这么久放入密钥目录
+    @Value("${jwt.keys.jwks-max-age-seconds:300}")
+    private long jwksMaxAgeSeconds;
+
+    /**
+     * 获取验签公钥
+     * @return JWK Set
+     */
+    @GetMapping("/.well-known/jwks.json")
+    @ApiOperation(value = "获取令牌验签公钥", notes = "返回JWK Set格式的ES256公钥，HS256模式下为空")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwksMaxAgeSeconds, TimeUnit.SECONDS).cachePublic())
+                .body(jwtKeyManager.getJwks());
+    }
+}
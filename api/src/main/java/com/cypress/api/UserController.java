@@ -1,7 +1,10 @@
 package com.cypress.api;
 
+import com.cypress.app.ratelimit.RateLimit;
 import com.cypress.app.user.UserAppService;
+import com.cypress.dto.ResourceVersion;
 import com.cypress.dto.UserInfo;
+import com.cypress.dto.VersionedUserInfo;
 import com.cypress.dto.UpdateUserInfoResponse;
 import com.cypress.request.*;
 import com.cypress.dto.LoginDto;
@@ -11,10 +14,16 @@ import com.cypress.utils.ResponseUtil;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 用户控制器 - 接口层
@@ -28,11 +37,18 @@ public class UserController {
     @Autowired
     private UserAppService userAppService;
 
+    // 用户资料在客户端中的有效期，过期后通过条件请求重新验证
+    // 接口需要登录且包含邮箱，只允许客户端私有缓存，不允许CDN等共享缓存保存
+    @Value("${user.profile.http.max-age-seconds:10}")
+    private long profileMaxAgeSeconds;
+
     /**
      * 获取验证码接口
      * @param phone 手机号
      * @return 验证码
      */
+    @RateLimit(name = "send-code-phone", key = "#phone", permits = 1, windowSeconds = 60)
+    @RateLimit(name = "send-code-ip", key = "#ip", permits = 20, windowSeconds = 3600)
     @PostMapping("/send-code")
     public ResponseEntity<Response<String>> sendCode(@RequestParam String phone) {
         Response<String> response = userAppService.sendCode(phone);
@@ -46,6 +62,7 @@ public class UserController {
      * @param request 注册请求参数
      * @return 注册成功的用户信息
      */
+    @RateLimit(name = "register-ip", key = "#ip", permits = 10, windowSeconds = 3600)
     @PostMapping("/register")
     @ApiOperation(value = "用户注册", notes = "使用手机号注册新用户")
     public ResponseEntity<Response<RegisterDto>> register(@RequestBody RegisterRequest request) {
@@ -58,6 +75,8 @@ public class UserController {
      * @param request 登录请求参数
      * @return 登录成功后的令牌和用户信息
      */
+    @RateLimit(name = "login-password-key", key = "#request.loginKey", permits = 10, windowSeconds = 300)
+    @RateLimit(name = "login-password-ip", key = "#ip", permits = 60, windowSeconds = 60)
     @PostMapping("/login-by-password")
     @ApiOperation(value = "密码登录", notes = "使用手机号或用户名登录")
     public ResponseEntity<Response<LoginDto>> login(@RequestBody LoginByPasswordRequest request) {
@@ -65,6 +84,8 @@ public class UserController {
         return ResponseUtil.toResponseEntity(response);
     }
 
+    @RateLimit(name = "login-code-phone", key = "#request.phone", permits = 10, windowSeconds = 300)
+    @RateLimit(name = "login-code-ip", key = "#ip", permits = 60, windowSeconds = 60)
     @PostMapping("/login-by-code")
     @ApiOperation(value = "手机验证码登录", notes = "使用手机号和验证码登录")
     public ResponseEntity<Response<LoginDto>> loginByCode(@RequestBody LoginByCodeRequest request) {
@@ -87,6 +108,22 @@ public class UserController {
         return ResponseUtil.toResponseEntity(response);
     }
 
+    /**
+     * 退出登录接口，当前令牌立即失效
+     * @return 退出结果
+     */
+    @PostMapping("/logout")
+    @ApiOperation(value = "退出登录", notes = "吊销当前使用的令牌")
+    public ResponseEntity<Response<String>> logout(@RequestHeader(value = "Authorization", required = false) String token) {
+        // 如果token以"Bearer "开头，去掉前缀
+        if (token != null && token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+
+        Response<String> response = userAppService.logout(token);
+        return ResponseUtil.toResponseEntity(response);
+    }
+
     /**
      * 设置用户密码接口
      * @param request 设置密码请求参数
@@ -113,13 +150,53 @@ public class UserController {
 
     /**
      * 获取用户信息接口
+     * 支持 If-None-Match / If-Modified-Since 条件请求，资料未变化时返回304；版本和响应体取自同一次加载
      * @param userId 用户ID
      * @return 用户信息
      */
     @GetMapping("/{userId}")
     @ApiOperation(value = "获取用户信息", notes = "根据用户ID获取用户信息")
-    public ResponseEntity<Response<UserInfo>> getUserInfo(@PathVariable String userId) {
-        Response<UserInfo> response = userAppService.getUserInfo(userId);
+    public ResponseEntity<Response<UserInfo>> getUserInfo(@PathVariable String userId, WebRequest webRequest) {
+        Response<VersionedUserInfo> profileResponse = userAppService.getUserProfile(userId);
+        if (!"200".equals(profileResponse.getCode())) {
+            return ResponseUtil.toResponseEntity(Response.<UserInfo>builder()
+                    .code(profileResponse.getCode())
+                    .info(profileResponse.getInfo())
+                    .build());
+        }
+
+        ResourceVersion version = profileResponse.getData().getVersion();
+        CacheControl cacheControl = CacheControl.maxAge(profileMaxAgeSeconds, TimeUnit.SECONDS)
+                .cachePrivate();
+        if (webRequest.checkNotModified(version.getETag(), version.getLastModified())) {
+            // checkNotModified 已写入 ETag 和 Last-Modified
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        ResponseEntity<Response<UserInfo>> entity = ResponseUtil.toResponseEntity(Response.<UserInfo>builder()
+                .code(profileResponse.getCode())
+                .info(profileResponse.getInfo())
+                .data(profileResponse.getData().getUserInfo())
+                .build());
+        return ResponseEntity.status(entity.getStatusCode())
+                .eTag(version.getETag())
+                .lastModified(version.getLastModified())
+                .cacheControl(cacheControl)
+                .body(entity.getBody());
+    }
+
+    /**
+     * 批量获取用户信息接口
+     * @param request 批量获取用户信息请求参数
+     * @return 存在的用户信息列表
+     */
+    @RateLimit(name = "batch-user", key = "#currentUserId", permits = 120, windowSeconds = 60)
+    @PostMapping("/batch")
+    @ApiOperation(value = "批量获取用户信息", notes = "根据用户ID列表批量获取用户信息，单次最多200个")
+    public ResponseEntity<Response<List<UserInfo>>> getUserInfos(@RequestBody @Valid BatchUserInfoRequest request) {
+        Response<List<UserInfo>> response = userAppService.getUserInfos(request.getUserIds());
         return ResponseUtil.toResponseEntity(response);
     }
 
@@ -129,6 +206,7 @@ public class UserController {
      * @param updateUserInfoRequest 更新用户信息请求参数
      * @return 更新成功后的用户信息
      */
+    @RateLimit(name = "update-user", key = "#currentUserId", permits = 30, windowSeconds = 60)
     @PatchMapping("/{userId}")
     @ApiOperation(value = "更新用户公开信息", notes = "使用PATCH方法部分更新用户信息，只传需要更新的字段")
     public ResponseEntity<Response<UpdateUserInfoResponse>> updateUserInfo(@PathVariable String userId, @RequestBody @Valid UpdateUserInfoRequest updateUserInfoRequest,
@@ -0,0 +1,111 @@
+package com.cypress.importer;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 批量导入参数，命令行以 --key=value 形式传入，未识别的参数原样交给Spring应用
+ */
+@Data
+public class BulkImportOptions {
+
+    /** 单条多行INSERT的参数个数上限（MySQL为65535），每行15个参数 */
+    private static final int MAX_CHUNK_SIZE = 4000;
+
+    /** 导入文件 */
+    private Path file;
+
+    /** 文件格式，未指定时按扩展名判断：.csv 为CSV，其余为NDJSON */
+    private Format format;
+
+    /** 每批写入的行数，即单条多行INSERT的行数 */
+    private int chunkSize = 1000;
+
+    /** 密码哈希线程数，小于等于0时取CPU核数 */
+    private int hashThreads = 0;
+
+    /** 已读取但未写入的批次上限，写入跟不上时读取线程阻塞 */
+    private int maxInFlightChunks = 4;
+
+    /** 检查点文件，默认为导入文件名加 .checkpoint */
+    private Path checkpoint;
+
+    /** 忽略已有检查点，从头导入 */
+    private boolean restart = false;
+
+    /** 进度日志间隔 */
+    private Duration progressInterval = Duration.ofSeconds(10);
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    public static BulkImportOptions parse(String[] args, List<String> passThrough) {
+        BulkImportOptions options = new BulkImportOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                passThrough.add(arg);
+                continue;
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "file":
+                    options.setFile(Paths.get(value));
+                    break;
+                case "format":
+                    options.setFormat(Format.valueOf(value.toUpperCase(Locale.ROOT)));
+                    break;
+                case "chunk-size":
+                    options.setChunkSize(Integer.parseInt(value));
+                    break;
+                case "hash-threads":
+                    options.setHashThreads(Integer.parseInt(value));
+                    break;
+                case "max-in-flight-chunks":
+                    options.setMaxInFlightChunks(Integer.parseInt(value));
+                    break;
+                case "checkpoint":
+                    options.setCheckpoint(Paths.get(value));
+                    break;
+                case "restart":
+                    options.setRestart(Boolean.parseBoolean(value));
+                    break;
+                case "progress-interval":
+                    options.setProgressInterval(Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                default:
+                    passThrough.add(arg);
+            }
+        }
+        options.validate();
+        return options;
+    }
+
+    private void validate() {
+        if (file == null) {
+            throw new IllegalArgumentException("缺少导入文件参数 --file");
+        }
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("--chunk-size 必须在1到" + MAX_CHUNK_SIZE + "之间");
+        }
+        if (maxInFlightChunks < 1) {
+            throw new IllegalArgumentException("--max-in-flight-chunks 必须大于0");
+        }
+        if (format == null) {
+            format = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? Format.CSV : Format.NDJSON;
+        }
+        if (checkpoint == null) {
+            checkpoint = Paths.get(file + ".checkpoint");
+        }
+    }
+
+    public int resolvedHashThreads() {
+        return hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+    }
+}
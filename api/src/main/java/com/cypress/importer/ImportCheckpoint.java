@@ -0,0 +1,58 @@
+package com.cypress.importer;
+
+import lombok.Data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * 导入检查点，每批写入数据库后保存
+ * 记录已处理到的行号和累计结果；先写临时文件再原子替换，进程在任意时刻退出都不会留下不完整的检查点
+ */
+@Data
+public class ImportCheckpoint {
+
+    /** 已处理的行数（含表头），继续导入时跳过 */
+    private long line;
+    private long imported;
+    private long invalid;
+    private long duplicate;
+
+    /**
+     * 读取检查点，文件不存在时返回空检查点
+     */
+    public static ImportCheckpoint load(Path path) throws IOException {
+        ImportCheckpoint checkpoint = new ImportCheckpoint();
+        if (!Files.exists(path)) {
+            return checkpoint;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        checkpoint.setLine(Long.parseLong(properties.getProperty("line", "0")));
+        checkpoint.setImported(Long.parseLong(properties.getProperty("imported", "0")));
+        checkpoint.setInvalid(Long.parseLong(properties.getProperty("invalid", "0")));
+        checkpoint.setDuplicate(Long.parseLong(properties.getProperty("duplicate", "0")));
+        return checkpoint;
+    }
+
+    public void save(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("line", String.valueOf(line));
+        properties.setProperty("imported", String.valueOf(imported));
+        properties.setProperty("invalid", String.valueOf(invalid));
+        properties.setProperty("duplicate", String.valueOf(duplicate));
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,44 @@
+package com.cypress.importer;
+
+import lombok.Data;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导入结果
+ * 行数为本次运行的结果，累计行数包含从检查点继续之前的运行；
+ * 哈希耗时是各线程耗时之和，与墙钟时间的比值即平均并行度
+ */
+@Data
+public class ImportReport {
+
+    private long startLine;
+    private long endLine;
+    private long imported;
+    private long invalid;
+    private long duplicate;
+    private long totalImported;
+    private long totalInvalid;
+    private long totalDuplicate;
+    private long batches;
+    private long elapsedNanos;
+    private long hashNanos;
+    private long insertNanos;
+
+    public double rowsPerSecond() {
+        long rows = imported + invalid + duplicate;
+        return elapsedNanos == 0 ? 0 : rows / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public void print(PrintStream out) {
+        double elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        out.printf("行号范围       %d - %d%n", startLine + 1, endLine);
+        out.printf("导入           %d（累计 %d）%n", imported, totalImported);
+        out.printf("格式错误       %d（累计 %d）%n", invalid, totalInvalid);
+        out.printf("手机号重复     %d（累计 %d）%n", duplicate, totalDuplicate);
+        out.printf("耗时           %.1f 秒，%.0f 行/秒%n", elapsedSeconds, rowsPerSecond());
+        out.printf("写入           %d 批，耗时 %.1f 秒%n", batches, insertNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        out.printf("密码哈希       线程耗时合计 %.1f 秒%n", hashNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,362 @@
+package com.cypress.importer;
+
+import com.cypress.persistence.cache.UserExistenceFilter;
+import com.cypress.persistence.converter.UserPoConverter;
+import com.cypress.persistence.dao.IUserDao;
+import com.cypress.persistence.po.UserPo;
+import com.cypress.user.model.entity.User;
+import com.cypress.utils.PasswordEncoder;
+import com.cypress.utils.PhoneValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户批量导入
+ * 读取线程逐行解析和校验，凑满一批后把密码哈希提交到与CPU核数相同的线程池并行计算；
+ * 写入线程按读取顺序等待每批哈希完成，以一条多行INSERT写入后保存检查点
+ * 读取和写入之间的队列有界，数据库写入跟不上时读取线程阻塞，内存中最多保留 max-in-flight-chunks + 2 批数据
+ *
+ * userId由 User.register 通过 SnowflakeIdGenerator 分配，其他默认值与注册接口相同
+ * 整批写入因手机号重复失败时逐行重新写入，跳过重复的行；从检查点继续时，上次已写入但未保存检查点的行按手机号重复跳过，不会重复导入
+ * 格式错误和重复的行写入导入文件名加 .rejected 的文件，每行为：行号、手机号、原因，以制表符分隔
+ * 每批保存检查点后把写入的userId发布给在线节点的存在性过滤器，新用户不必等到导入结束才能按userId查到
+ *
+ * 从检查点继续时依赖 users 表的手机号唯一索引 uk_users_phone（infra 模块 db/migration 中的 V1 脚本）
+ */
+@Slf4j
+public class UserBulkImporter {
+
+    private static final int MAX_EMAIL_LENGTH = 100;
+    private static final int MAX_USERNAME_LENGTH = 50;
+    private static final int BCRYPT_LENGTH = 60;
+
+    private final IUserDao userDao;
+    private final UserPoConverter userPoConverter;
+    private final UserExistenceFilter userExistenceFilter;
+    private final BulkImportOptions options;
+
+    private final BlockingQueue<Chunk> pending;
+    private final AtomicLong hashNanos = new AtomicLong();
+    private volatile Throwable writerFailure;
+
+    public UserBulkImporter(IUserDao userDao, UserPoConverter userPoConverter, UserExistenceFilter userExistenceFilter,
+                            BulkImportOptions options) {
+        this.userDao = userDao;
+        this.userPoConverter = userPoConverter;
+        this.userExistenceFilter = userExistenceFilter;
+        this.options = options;
+        this.pending = new ArrayBlockingQueue<>(options.getMaxInFlightChunks());
+    }
+
+    /**
+     * 从检查点（如有）开始导入到文件结束
+     * @return 导入结果
+     * @throws IllegalStateException 写入数据库失败，检查点停在最后一个写入成功的批次
+     */
+    public ImportReport run() throws IOException, InterruptedException {
+        ImportCheckpoint checkpoint = options.isRestart() ? new ImportCheckpoint() : ImportCheckpoint.load(options.getCheckpoint());
+        ImportReport report = new ImportReport();
+        report.setStartLine(checkpoint.getLine());
+        if (checkpoint.getLine() > 0) {
+            log.info("从检查点继续导入，跳过前{}行", checkpoint.getLine());
+        }
+
+        int threads = options.resolvedHashThreads();
+        ExecutorService hashPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("import-hash-"));
+        long start = System.nanoTime();
+        try (UserRecordReader reader = new UserRecordReader(options.getFile(), options.getFormat(), checkpoint.getLine());
+             RejectLog rejectLog = new RejectLog(Paths.get(options.getFile() + ".rejected"), options.isRestart())) {
+            Thread writer = new Thread(() -> writeLoop(checkpoint, report, rejectLog), "import-writer");
+            writer.start();
+            try {
+                readLoop(reader, hashPool);
+            } finally {
+                if (writerFailure == null) {
+                    enqueue(Chunk.END);
+                }
+                writer.join();
+            }
+        } finally {
+            hashPool.shutdownNow();
+        }
+        if (writerFailure != null) {
+            throw new IllegalStateException("写入失败，已导入到第" + checkpoint.getLine() + "行", writerFailure);
+        }
+
+        report.setEndLine(checkpoint.getLine());
+        report.setTotalImported(checkpoint.getImported());
+        report.setTotalInvalid(checkpoint.getInvalid());
+        report.setTotalDuplicate(checkpoint.getDuplicate());
+        report.setElapsedNanos(System.nanoTime() - start);
+        report.setHashNanos(hashNanos.get());
+        return report;
+    }
+
+    private void readLoop(UserRecordReader reader, ExecutorService hashPool) throws IOException, InterruptedException {
+        Chunk chunk = new Chunk();
+        while (true) {
+            UserImportRecord record;
+            try {
+                record = reader.next();
+            } catch (IllegalArgumentException e) {
+                chunk.reject(reader.lineNumber(), null, e.getMessage());
+                chunk.invalid++;
+                chunk.lastLine = reader.lineNumber();
+                continue;
+            }
+            if (record == null) {
+                break;
+            }
+            chunk.lastLine = reader.lineNumber();
+            String reason = validate(record);
+            if (reason != null) {
+                chunk.reject(reader.lineNumber(), record.getPhone(), reason);
+                chunk.invalid++;
+                continue;
+            }
+            // 同一批内的重复手机号会使整批写入失败，在这里直接跳过
+            if (!chunk.phones.add(record.getPhone())) {
+                chunk.reject(reader.lineNumber(), record.getPhone(), "手机号重复");
+                chunk.duplicate++;
+                continue;
+            }
+            chunk.rows.add(new Row(reader.lineNumber(), toPo(record), record.getPassword()));
+            if (chunk.rows.size() >= options.getChunkSize()) {
+                submit(chunk, hashPool);
+                chunk = new Chunk();
+            }
+        }
+        chunk.lastLine = reader.lineNumber();
+        submit(chunk, hashPool);
+    }
+
+    /**
+     * 提交本批的密码哈希，放入写入队列，队列已满时阻塞
+     */
+    private void submit(Chunk chunk, ExecutorService hashPool) throws InterruptedException {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(chunk.rows.size());
+        for (Row row : chunk.rows) {
+            if (row.rawPassword == null || isBcrypt(row.rawPassword)) {
+                row.userPo.setPassword(row.rawPassword);
+                continue;
+            }
+            futures.add(CompletableFuture.runAsync(() -> {
+                long begin = System.nanoTime();
+                row.userPo.setPassword(PasswordEncoder.encode(row.rawPassword));
+                hashNanos.addAndGet(System.nanoTime() - begin);
+            }, hashPool));
+        }
+        chunk.hashed = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        enqueue(chunk);
+    }
+
+    private void enqueue(Chunk chunk) throws InterruptedException {
+        while (!pending.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (writerFailure != null) {
+                throw new IllegalStateException("写入线程已停止", writerFailure);
+            }
+        }
+    }
+
+    private void writeLoop(ImportCheckpoint checkpoint, ImportReport report, RejectLog rejectLog) {
+        long progressIntervalNanos = options.getProgressInterval().toNanos();
+        long start = System.nanoTime();
+        long lastProgress = start;
+        try {
+            while (true) {
+                Chunk chunk = pending.take();
+                if (chunk == Chunk.END) {
+                    return;
+                }
+                chunk.hashed.join();
+                long begin = System.nanoTime();
+                int imported = write(chunk);
+                report.setInsertNanos(report.getInsertNanos() + System.nanoTime() - begin);
+                report.setBatches(report.getBatches() + 1);
+
+                int duplicate = chunk.duplicate + chunk.rows.size() - imported;
+                report.setImported(report.getImported() + imported);
+                report.setInvalid(report.getInvalid() + chunk.invalid);
+                report.setDuplicate(report.getDuplicate() + duplicate);
+                checkpoint.setLine(chunk.lastLine);
+                checkpoint.setImported(checkpoint.getImported() + imported);
+                checkpoint.setInvalid(checkpoint.getInvalid() + chunk.invalid);
+                checkpoint.setDuplicate(checkpoint.getDuplicate() + duplicate);
+                // 被拒绝的行与检查点一起写出，从检查点继续时不会重复记录
+                rejectLog.write(chunk.rejected);
+                checkpoint.save(options.getCheckpoint());
+                userExistenceFilter.publish(chunk.importedUserIds);
+
+                long now = System.nanoTime();
+                if (now - lastProgress >= progressIntervalNanos) {
+                    lastProgress = now;
+                    long rows = report.getImported() + report.getInvalid() + report.getDuplicate();
+                    log.info("已处理到第{}行，导入：{}，格式错误：{}，重复：{}，{}行/秒，待写入批次：{}",
+                            checkpoint.getLine(), report.getImported(), report.getInvalid(), report.getDuplicate(),
+                            rows * TimeUnit.SECONDS.toNanos(1) / Math.max(now - start, 1), pending.size());
+                }
+            }
+        } catch (Throwable e) {
+            writerFailure = e;
+        }
+    }
+
+    /**
+     * 写入一批用户
+     * @return 写入成功的行数
+     */
+    private int write(Chunk chunk) {
+        if (chunk.rows.isEmpty()) {
+            return 0;
+        }
+        List<UserPo> users = new ArrayList<>(chunk.rows.size());
+        chunk.rows.forEach(row -> users.add(row.userPo));
+        try {
+            userDao.batchInsert(users);
+            users.forEach(userPo -> chunk.importedUserIds.add(userPo.getUserId()));
+            return users.size();
+        } catch (DuplicateKeyException e) {
+            log.debug("批量写入时手机号重复，改为逐行写入，行号：{} - {}", chunk.rows.get(0).line, chunk.lastLine);
+        }
+        int imported = 0;
+        for (Row row : chunk.rows) {
+            try {
+                userDao.insert(row.userPo);
+                chunk.importedUserIds.add(row.userPo.getUserId());
+                imported++;
+            } catch (DuplicateKeyException e) {
+                // userId是新分配的，已存在说明整批写入时这一行已经写入（分片时各分片分别写入）
+                if (userDao.existsByUserId(row.userPo.getUserId())) {
+                    chunk.importedUserIds.add(row.userPo.getUserId());
+                    imported++;
+                } else {
+                    chunk.reject(row.line, row.userPo.getPhone(), "手机号已注册");
+                }
+            }
+        }
+        return imported;
+    }
+
+    private String validate(UserImportRecord record) {
+        if (!PhoneValidator.isValid(record.getPhone())) {
+            return "手机号格式错误";
+        }
+        String email = record.getEmail();
+        if (email != null && (email.length() > MAX_EMAIL_LENGTH || email.indexOf('@') <= 0)) {
+            return "邮箱格式错误";
+        }
+        if (record.getUsername() != null && record.getUsername().length() > MAX_USERNAME_LENGTH) {
+            return "用户名过长";
+        }
+        if (record.getGender() != null && (record.getGender() < 0 || record.getGender() > 2)) {
+            return "性别取值错误";
+        }
+        if (record.getAge() != null && record.getAge() < 0) {
+            return "年龄取值错误";
+        }
+        return null;
+    }
+
+    private UserPo toPo(UserImportRecord record) {
+        User user = new User();
+        user.register(record.getPhone());
+        user.setEmail(record.getEmail());
+        if (record.getUsername() != null) {
+            user.setUsername(record.getUsername());
+        }
+        if (record.getAge() != null) {
+            user.setAge(record.getAge());
+        }
+        if (record.getGender() != null) {
+            user.setGender(record.getGender());
+        }
+        user.setAvatarUrl(record.getAvatarUrl());
+        user.setBio(record.getBio());
+        user.setSignature(record.getSignature());
+        UserPo userPo = userPoConverter.toPo(user);
+        // 密码在哈希完成后设置
+        userPo.setPassword(null);
+        return userPo;
+    }
+
+    private static boolean isBcrypt(String password) {
+        return password.length() == BCRYPT_LENGTH && password.charAt(0) == '$' && password.charAt(1) == '2'
+                && password.charAt(3) == '$';
+    }
+
+    private static class Row {
+        private final long line;
+        private final UserPo userPo;
+        private final String rawPassword;
+
+        private Row(long line, UserPo userPo, String rawPassword) {
+            this.line = line;
+            this.userPo = userPo;
+            this.rawPassword = rawPassword;
+        }
+    }
+
+    private static class Chunk {
+        private static final Chunk END = new Chunk();
+
+        private final List<Row> rows = new ArrayList<>();
+        private final Set<String> phones = new HashSet<>();
+        private CompletableFuture<Void> hashed;
+        private long lastLine;
+        private final List<String> rejected = new ArrayList<>();
+        private final List<Long> importedUserIds = new ArrayList<>();
+        private int invalid;
+        private int duplicate;
+
+        private void reject(long line, String phone, String reason) {
+            rejected.add(line + "\t" + (phone == null ? "" : phone) + "\t" + reason);
+        }
+    }
+
+    /**
+     * 被拒绝的行，只由写入线程写入
+     */
+    private static class RejectLog implements AutoCloseable {
+        private final BufferedWriter writer;
+
+        private RejectLog(Path path, boolean truncate) throws IOException {
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+        }
+
+        private void write(List<String> lines) throws IOException {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.cypress.importer;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * 导入文件中的一行用户数据，字段名与CSV表头、NDJSON属性名相同
+ * 只有手机号必填；密码为明文时导入时加密，已是BCrypt哈希时原样保存，为空时只能通过验证码登录
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserImportRecord {
+
+    private String phone;
+    private String password;
+    private String email;
+    private String username;
+    private Integer age;
+    private Integer gender;
+    private String avatarUrl;
+    private String bio;
+    private String signature;
+}
@@ -0,0 +1,172 @@
+package com.cypress.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 按行流式读取导入文件，内存中只保留当前行
+ * CSV第一行为表头，字段可用双引号包围，引号内的双引号写作两个双引号，不支持跨行字段；NDJSON每行一个JSON对象
+ * 空行跳过；无法解析的行抛出 IllegalArgumentException，调用方记录后继续读取下一行
+ */
+public class UserRecordReader implements Closeable {
+
+    private static final ObjectReader JSON_READER = new ObjectMapper().readerFor(UserImportRecord.class);
+
+    private final BufferedReader reader;
+    private final BulkImportOptions.Format format;
+    private final StringBuilder field = new StringBuilder();
+    private Map<String, Integer> columns;
+    private long lineNumber;
+
+    /**
+     * 打开导入文件
+     * @param file 导入文件
+     * @param format 文件格式
+     * @param skipLines 跳过的行数（含CSV表头），用于从检查点继续
+     */
+    public UserRecordReader(Path file, BulkImportOptions.Format format, long skipLines) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        this.format = format;
+        if (format == BulkImportOptions.Format.CSV) {
+            String header = readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV文件缺少表头");
+            }
+            columns = new HashMap<>();
+            List<String> names = splitCsv(header);
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("phone")) {
+                throw new IllegalArgumentException("CSV表头缺少phone列");
+            }
+        }
+        while (lineNumber < skipLines && readLine() != null) {
+            // 跳过已导入的行
+        }
+    }
+
+    /**
+     * 读取下一条记录
+     * @return 文件结束时返回null
+     * @throws IllegalArgumentException 当前行格式错误
+     */
+    public UserImportRecord next() throws IOException {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        return format == BulkImportOptions.Format.CSV ? parseCsv(line) : parseJson(line);
+    }
+
+    /**
+     * 已读取的行数，即最近一条记录所在的行号（从1开始，含表头）
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String readLine() throws IOException {
+        String line = reader.readLine();
+        if (line != null) {
+            lineNumber++;
+        }
+        return line;
+    }
+
+    private UserImportRecord parseJson(String line) {
+        try {
+            return JSON_READER.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON格式错误：" + e.getOriginalMessage());
+        }
+    }
+
+    private UserImportRecord parseCsv(String line) {
+        List<String> values = splitCsv(line);
+        UserImportRecord record = new UserImportRecord();
+        record.setPhone(column(values, "phone"));
+        record.setPassword(column(values, "password"));
+        record.setEmail(column(values, "email"));
+        record.setUsername(column(values, "username"));
+        record.setAge(intColumn(values, "age"));
+        record.setGender(intColumn(values, "gender"));
+        record.setAvatarUrl(column(values, "avatarurl"));
+        record.setBio(column(values, "bio"));
+        record.setSignature(column(values, "signature"));
+        return record;
+    }
+
+    private String column(List<String> values, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    private Integer intColumn(List<String> values, String name) {
+        String value = column(values, name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + "不是整数：" + value);
+        }
+    }
+
+    private List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("CSV引号未闭合");
+        }
+        values.add(field.toString());
+        return values;
+    }
+}
@@ -0,0 +1,73 @@
+package com.cypress.app.user;
+
+import com.cypress.dto.RegisterDto;
+import com.cypress.dto.TokenPayload;
+import com.cypress.dto.TokenProfile;
+import com.cypress.dto.UpdateUserInfoResponse;
+import com.cypress.dto.UserInfo;
+import com.cypress.persistence.converter.UserPoConverter;
+import com.cypress.persistence.converter.UserPoConverterTest;
+import com.cypress.persistence.po.UserPo;
+import com.cypress.user.model.entity.User;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 领域实体转换为各个DTO后，DTO的每个字段都取自领域实体的同名字段
+ * DTO中没有的字段（例如密码）不会出现在结果中
+ */
+class UserDtoConverterTest {
+
+    private final UserDtoConverter converter = Mappers.getMapper(UserDtoConverter.class);
+
+    private User user() throws Exception {
+        return Mappers.getMapper(UserPoConverter.class).toDomain(UserPoConverterTest.fill(new UserPo()));
+    }
+
+    @Test
+    void userInfoKeepsEveryField() throws Exception {
+        User user = user();
+        UserInfo userInfo = converter.toUserInfo(user);
+
+        assertThat(userInfo).hasNoNullFieldsOrProperties();
+        assertThat(userInfo.getUserId()).isEqualTo(String.valueOf(user.getUserId()));
+        assertThat(userInfo).usingRecursiveComparison().ignoringFields("userId").isEqualTo(user);
+    }
+
+    @Test
+    void registerDtoKeepsEveryField() throws Exception {
+        User user = user();
+        RegisterDto registerDto = converter.toRegisterDto(user);
+
+        assertThat(registerDto).hasNoNullFieldsOrProperties();
+        assertThat(registerDto.getUserId()).isEqualTo(String.valueOf(user.getUserId()));
+        assertThat(registerDto).usingRecursiveComparison().ignoringFields("userId").isEqualTo(user);
+    }
+
+    @Test
+    void updateUserInfoResponseKeepsEveryField() throws Exception {
+        User user = user();
+        UpdateUserInfoResponse response = converter.toUpdateUserInfoResponse(user);
+
+        assertThat(response).hasNoNullFieldsOrPropertiesExcept("newToken");
+        assertThat(response.getUserId()).isEqualTo(String.valueOf(user.getUserId()));
+        assertThat(response).usingRecursiveComparison().ignoringFields("userId", "newToken").isEqualTo(user);
+    }
+
+    @Test
+    void tokenProfileRoundTripsThroughPayload() throws Exception {
+        User user = user();
+        TokenProfile profile = converter.toTokenProfile(user);
+
+        assertThat(profile).hasNoNullFieldsOrProperties();
+        assertThat(profile).usingRecursiveComparison().isEqualTo(user);
+
+        TokenPayload payload = new TokenPayload(user.getUserId(), "jti", null, null, profile);
+        UserInfo userInfo = converter.toUserInfo(payload);
+        assertThat(userInfo.getUserId()).isEqualTo(String.valueOf(user.getUserId()));
+        assertThat(userInfo.getUsername()).isEqualTo(user.getUsername());
+        assertThat(userInfo.getAvatarUrl()).isEqualTo(user.getAvatarUrl());
+    }
+}
@@ -0,0 +1,60 @@
+package com.cypress.persistence.converter;
+
+import com.cypress.persistence.po.UserPo;
+import com.cypress.user.model.entity.User;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 数据实体经领域实体转换回数据实体后每个字段都不变
+ * 数据实体的字段按反射逐个填充，新增字段未在转换器中对应时这里会失败
+ */
+public class UserPoConverterTest {
+
+    private final UserPoConverter converter = Mappers.getMapper(UserPoConverter.class);
+
+    @Test
+    void roundTripKeepsEveryField() throws Exception {
+        UserPo userPo = fill(new UserPo());
+
+        User user = converter.toDomain(userPo);
+        UserPo back = converter.toPo(user);
+
+        assertThat(userPo).hasNoNullFieldsOrProperties();
+        assertThat(back).usingRecursiveComparison().isEqualTo(userPo);
+        assertThat(user.dirtyFields()).isEmpty();
+    }
+
+    /**
+     * 给每个字段填充互不相同的非空值
+     */
+    public static <T> T fill(T target) throws IllegalAccessException {
+        int seed = 1;
+        for (Field field : target.getClass().getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            Class<?> type = field.getType();
+            if (type == long.class || type == Long.class) {
+                field.set(target, 1000L + seed);
+            } else if (type == Integer.class) {
+                field.set(target, seed);
+            } else if (type == String.class) {
+                field.set(target, field.getName() + "-" + seed);
+            } else if (type == LocalDateTime.class) {
+                field.set(target, LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(seed));
+            } else {
+                throw new IllegalStateException("未处理的字段类型：" + field);
+            }
+            seed++;
+        }
+        return target;
+    }
+}
@@ -0,0 +1,30 @@
+package com.cypress.app.config;
+
+import com.cypress.exception.RateLimitException;
+import com.cypress.response.Response;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * 全局异常处理
+ */
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    /**
+     * 限流异常转换为 429 响应，并通过 Retry-After 告知客户端等待时间
+     */
+    @ExceptionHandler(RateLimitException.class)
+    public ResponseEntity<Response<String>> handleRateLimit(RateLimitException e) {
+        Response<String> response = Response.<String>builder()
+                .code(e.getCode())
+                .info(e.getInfo())
+                .build();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+    }
+}
@@ -1,6 +1,7 @@
 package com.cypress.app.config;
 
 import com.cypress.app.user.LoginInterceptor;
+import com.cypress.app.user.UserContextInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -13,6 +14,9 @@ public class WebConfig implements WebMvcConfigurer {
     @Autowired
     private LoginInterceptor loginInterceptor;
 
+    @Autowired
+    private UserContextInterceptor userContextInterceptor;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -25,13 +29,17 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // 请求上下文拦截器最先执行，覆盖所有API请求
+        registry.addInterceptor(userContextInterceptor)
+                .addPathPatterns("/api/**");
+
         // 注册登录拦截器，拦截所有API请求，但排除登录、注册等公开接口和OPTIONS请求
         registry.addInterceptor(loginInterceptor)
                 .addPathPatterns("/api/**")
                 .excludePathPatterns("/api/user/register")
                 .excludePathPatterns("/api/user/login-by-password")
                 .excludePathPatterns("/api/user/login-by-code")
-                .excludePathPatterns("/api/user/send_code")
+                .excludePathPatterns("/api/user/send-code")
                 .excludePathPatterns("/api/user/set-password")
                 .excludePathPatterns("/api/user/options");
     }
@@ -0,0 +1,92 @@
+package com.cypress.app.metrics;
+
+import com.cypress.exception.AppException;
+import com.cypress.response.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分层耗时统计
+ * 对控制器、领域服务和仓库的每个方法记录耗时和调用次数，按方法和结果码打标签，
+ * 用于定位一次慢请求耗在哪一层（如密码登录慢在BCrypt、MySQL还是Redis）
+ * 结果码取自返回的 Response.code，抛出异常时取 AppException 的异常码，其他异常记为异常类名
+ * Timer按方法和结果码缓存，调用时不重复构建和注册
+ */
+@Aspect
+@Component
+public class LayerMetricsAspect {
+
+    private static final String METRIC_NAME = "user.layer";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Method, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.cypress.api.UserController.*(..))")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "controller");
+    }
+
+    @Around("execution(public * com.cypress.user.service.IUserDomainService+.*(..))")
+    public Object timeDomainService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "domain");
+    }
+
+    @Around("execution(public * com.cypress.user.repository.IUserRepository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "repository");
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        long start = System.nanoTime();
+        String code = "none";
+        try {
+            Object result = joinPoint.proceed();
+            code = resultCode(result);
+            return result;
+        } catch (AppException e) {
+            code = e.getCode();
+            throw e;
+        } catch (Throwable e) {
+            code = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            timer(joinPoint, layer, code == null ? "none" : code).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, String layer, String code) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return timers.computeIfAbsent(method, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(code, key -> Timer.builder(METRIC_NAME)
+                        .tag("layer", layer)
+                        .tag("method", method.getName())
+                        .tag("code", code)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    private String resultCode(Object result) {
+        if (result instanceof ResponseEntity) {
+            result = ((ResponseEntity<?>) result).getBody();
+        }
+        if (result instanceof Response) {
+            return ((Response<?>) result).getCode();
+        }
+        // 仓库等不返回 Response 的方法正常返回即视为成功
+        return "ok";
+    }
+}
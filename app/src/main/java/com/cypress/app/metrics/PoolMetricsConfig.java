@@ -0,0 +1,19 @@
+package com.cypress.app.metrics;
+
+import io.micrometer.core.instrument.binder.commonspool2.CommonsObjectPool2Metrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 连接池指标
+ * HikariCP和Lettuce命令耗时由Spring Boot自动导出；
+ * Lettuce连接池基于commons-pool2，通过JMX注册的池对象导出活跃、空闲和等待数
+ */
+@Configuration
+public class PoolMetricsConfig {
+
+    @Bean
+    public CommonsObjectPool2Metrics commonsObjectPool2Metrics() {
+        return new CommonsObjectPool2Metrics();
+    }
+}
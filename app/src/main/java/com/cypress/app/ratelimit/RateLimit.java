@@ -0,0 +1,41 @@
+package com.cypress.app.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明式限流
+ * 标注在控制器方法上，同一方法可按不同维度（手机号、IP、用户ID）叠加多条规则
+ * 每条规则的阈值可通过 rate-limit.rules.{name}.permits 和 rate-limit.rules.{name}.window-seconds 覆盖
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(RateLimits.class)
+public @interface RateLimit {
+
+    /**
+     * 规则名称，同时作为限流键的一部分
+     */
+    String name();
+
+    /**
+     * 限流键的SpEL表达式，可引用方法参数（如 #phone、#request.loginKey），
+     * 以及内置变量 #ip（客户端IP）和 #currentUserId（当前登录用户ID）；结果为空时不限流
+     */
+    String key();
+
+    /**
+     * 窗口内允许的请求数
+     */
+    int permits();
+
+    /**
+     * 窗口长度（秒）
+     */
+    int windowSeconds() default 60;
+}
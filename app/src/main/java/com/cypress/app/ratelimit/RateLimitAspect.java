@@ -0,0 +1,130 @@
+package com.cypress.app.ratelimit;
+
+import com.cypress.app.user.UserContext;
+import com.cypress.dto.UserInfo;
+import com.cypress.exception.RateLimitException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 限流切面
+ * 按方法上的 {@link RateLimit} 规则依次检查，任意一条超限即抛出 {@link RateLimitException}
+ */
+@Slf4j
+@Aspect
+@Component
+public class RateLimitAspect {
+
+    private static final String RULE_PREFIX = "rate-limit.rules.";
+
+    private final ExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private SlidingWindowRateLimiter rateLimiter;
+
+    @Autowired
+    private Environment environment;
+
+    // 全局开关，压测等场景可关闭
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    // 是否信任 X-Forwarded-For 中的客户端IP，仅在部署于可信反向代理之后时开启
+    @Value("${rate-limit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    @Around("@annotation(com.cypress.app.ratelimit.RateLimit) || @annotation(com.cypress.app.ratelimit.RateLimits)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Set<RateLimit> rules = AnnotatedElementUtils.findMergedRepeatableAnnotations(method, RateLimit.class);
+        MethodBasedEvaluationContext context = null;
+        for (RateLimit rule : rules) {
+            int permits = environment.getProperty(RULE_PREFIX + rule.name() + ".permits", Integer.class, rule.permits());
+            if (permits <= 0) {
+                continue;
+            }
+            int windowSeconds = environment.getProperty(RULE_PREFIX + rule.name() + ".window-seconds", Integer.class,
+                    rule.windowSeconds());
+
+            if (context == null) {
+                context = createContext(method, joinPoint.getArgs());
+            }
+            String key = evaluateKey(rule, context);
+            if (!StringUtils.hasText(key)) {
+                continue;
+            }
+
+            long waitMillis = rateLimiter.tryAcquire(rule.name(), key, permits, windowSeconds * 1000L);
+            if (waitMillis > 0) {
+                log.info("请求被限流，规则：{}，键：{}，等待：{}ms", rule.name(), key, waitMillis);
+                throw new RateLimitException((waitMillis + 999) / 1000);
+            }
+        }
+        return joinPoint.proceed();
+    }
+
+    private MethodBasedEvaluationContext createContext(Method method, Object[] args) {
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(null, method, args, parameterNameDiscoverer);
+        context.setVariable("ip", clientIp());
+        UserInfo userInfo = UserContext.getUserInfo();
+        context.setVariable("currentUserId", userInfo == null ? null : userInfo.getUserId());
+        return context;
+    }
+
+    private String evaluateKey(RateLimit rule, MethodBasedEvaluationContext context) {
+        Expression expression = expressions.computeIfAbsent(rule.key(), parser::parseExpression);
+        try {
+            Object value = expression.getValue(context);
+            return value == null ? null : value.toString();
+        } catch (Exception e) {
+            // 表达式取值失败（如请求体为空）时跳过该规则，交给参数校验处理
+            log.debug("限流键计算失败，规则：{}，表达式：{}", rule.name(), rule.key(), e);
+            return null;
+        }
+    }
+
+    private String clientIp() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (StringUtils.hasText(forwardedFor)) {
+                return forwardedFor.split(",")[0].trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
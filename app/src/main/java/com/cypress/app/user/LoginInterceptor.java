@@ -1,5 +1,6 @@
 package com.cypress.app.user;
 
+import com.cypress.dto.TokenPayload;
 import com.cypress.dto.UserInfo;
 import com.cypress.response.Response;
 import com.cypress.utils.JwtUtil;
@@ -19,6 +20,8 @@ public class LoginInterceptor implements HandlerInterceptor {
     private JwtUtil jwtUtil;
     @Autowired
     private UserAppService userAppService;
+    @Autowired
+    private UserDtoConverter userDtoConverter;
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         // 对于OPTIONS请求直接放行，这是CORS预检请求
@@ -40,12 +43,28 @@ public class LoginInterceptor implements HandlerInterceptor {
             token = token.substring(7);
         }
 
-        // 验证token有效性
-        Long userId = jwtUtil.validateToken(token);
-        if (userId == null) {
+        // 验证token有效性（单次验签，结果按令牌缓存直至过期）
+        TokenPayload payload = jwtUtil.parseToken(token);
+        if (payload == null) {
             responseUnauthorized(response, "令牌无效或已过期");
             return false;
         }
+        // 吊销状态只查询本地副本，不增加网络往返
+        if (userAppService.isTokenRevoked(payload)) {
+            responseUnauthorized(response, "令牌已失效");
+            return false;
+        }
+        // 令牌中嵌入了用户资料时直接使用，不访问存储
+        if (payload.getProfile() != null) {
+            // 签发时账号已不是正常状态的令牌直接拒绝；签发后被禁用的账号需在禁用时吊销该用户已签发的令牌
+            if (!Integer.valueOf(1).equals(payload.getProfile().getStatus())) {
+                responseUnauthorized(response, "账号已被禁用");
+                return false;
+            }
+            UserContext.setUserInfo(userDtoConverter.toUserInfo(payload));
+            return true;
+        }
+        Long userId = payload.getUserId();
 
         // 获取用户信息并设置到上下文
         Response<UserInfo> userInfoResponse = userAppService.getUserInfo(String.valueOf(userId));
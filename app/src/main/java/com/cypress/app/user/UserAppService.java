@@ -3,18 +3,25 @@ package com.cypress.app.user;
 
 import com.cypress.dto.UpdateUserInfoResponse;
 import com.cypress.dto.UserInfo;
+import com.cypress.dto.VersionedUserInfo;
 import com.cypress.request.*;
 import com.cypress.dto.LoginDto;
 import com.cypress.dto.RegisterDto;
+import com.cypress.dto.ResourceVersion;
+import com.cypress.dto.TokenPayload;
 import com.cypress.user.model.entity.User;
 import com.cypress.user.service.IUserDomainService;
 import com.cypress.utils.JwtUtil;
 import com.cypress.response.Response;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 用户应用服务 - 应用层
  * 作为控制器和领域服务之间的桥梁，负责协调领域对象完成业务操作
@@ -28,6 +35,9 @@ public class UserAppService {
 
     @Autowired
     private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserDtoConverter userDtoConverter;
     /**
      * 获取验证码
      * @param phone 手机号
@@ -61,10 +71,7 @@ public class UserAppService {
                     .build();
         }
         User user = userResponse.getData();
-        UserInfo userInfo = new UserInfo();
-        BeanUtils.copyProperties(user, userInfo);
-        // 将Long类型的userId转换为String类型避免前端精度问题
-        userInfo.setUserId(String.valueOf(user.getUserId()));
+        UserInfo userInfo = userDtoConverter.toUserInfo(user);
         UserContext.setUserInfo(userInfo);
         // 注册成功，转换为RegisterDto
         RegisterDto registerDto = convertToResponse(userResponse.getData());
@@ -118,17 +125,14 @@ public class UserAppService {
         
         // 登录成功，生成 JWT token
         User user = userResponse.getData();
-        String token = jwtUtil.generateToken(user.getUserId());
+        String token = jwtUtil.generateToken(user.getUserId(), userDtoConverter.toTokenProfile(user));
         
         // 构造登录响应
         LoginDto loginDto = new LoginDto();
         loginDto.setToken(token);
         
         // 构造用户信息
-        UserInfo userInfo = new UserInfo();
-        BeanUtils.copyProperties(user, userInfo);
-        // 将Long类型的userId转换为String类型避免前端精度问题
-        userInfo.setUserId(String.valueOf(user.getUserId()));
+        UserInfo userInfo = userDtoConverter.toUserInfo(user);
         loginDto.setUserInfo(userInfo);
         
         return Response.<LoginDto>builder()
@@ -162,10 +166,7 @@ public class UserAppService {
         }
         
         User user = userResponse.getData();
-        UserInfo userInfo = new UserInfo();
-        BeanUtils.copyProperties(user, userInfo);
-        // 将Long类型的userId转换为String类型避免前端精度问题
-        userInfo.setUserId(String.valueOf(user.getUserId()));
+        UserInfo userInfo = userDtoConverter.toUserInfo(user);
         
         return Response.<UserInfo>builder()
                 .code("200")
@@ -174,6 +175,80 @@ public class UserAppService {
                 .build();
     }
 
+    /**
+     * 获取他人的公开资料及其版本，用于 GET /api/user/{userId} 的条件请求
+     * 版本取自同一次加载的用户，资料和实体标签不会不一致；
+     * 用户信息中会变化的只有资料（随updateTime变化）和最后登录时间，两者共同决定实体标签
+     * @param userIdStr 用户ID字符串
+     * @return 用户信息和资源版本
+     */
+    public Response<VersionedUserInfo> getUserProfile(String userIdStr) {
+        Long userId;
+        try {
+            userId = Long.parseLong(userIdStr);
+        } catch (NumberFormatException e) {
+            return Response.<VersionedUserInfo>builder()
+                    .code("400")
+                    .info("用户ID格式不正确")
+                    .build();
+        }
+        Response<User> userResponse = userDomainService.getUserProfile(userId);
+        if (!"200".equals(userResponse.getCode())) {
+            return Response.<VersionedUserInfo>builder()
+                    .code(userResponse.getCode())
+                    .info(userResponse.getInfo())
+                    .build();
+        }
+
+        User user = userResponse.getData();
+        long updateTime = toEpochMilli(user.getUpdateTime());
+        long lastLoginTime = toEpochMilli(user.getLastLoginTime());
+        String eTag = "\"" + Long.toHexString(user.getUserId()) + "-" + Long.toHexString(Math.max(updateTime, 0))
+                + "-" + Long.toHexString(Math.max(lastLoginTime, 0)) + "\"";
+        ResourceVersion version = new ResourceVersion(eTag, Math.max(updateTime, lastLoginTime));
+        return Response.<VersionedUserInfo>builder()
+                .code("200")
+                .info("获取用户信息成功")
+                .data(new VersionedUserInfo(userDtoConverter.toUserInfo(user), version))
+                .build();
+    }
+
+    /**
+     * 批量获取用户信息
+     * @param userIdStrs 用户ID字符串列表
+     * @return 存在的用户信息列表，按传入顺序排列
+     */
+    public Response<List<UserInfo>> getUserInfos(List<String> userIdStrs) {
+        List<Long> userIds = new ArrayList<>(userIdStrs.size());
+        try {
+            for (String userIdStr : userIdStrs) {
+                userIds.add(Long.parseLong(userIdStr));
+            }
+        } catch (NumberFormatException e) {
+            return Response.<List<UserInfo>>builder()
+                    .code("400")
+                    .info("用户ID格式不正确")
+                    .build();
+        }
+        Response<List<User>> usersResponse = userDomainService.getUserInfos(userIds);
+        if (!"200".equals(usersResponse.getCode())) {
+            return Response.<List<UserInfo>>builder()
+                    .code(usersResponse.getCode())
+                    .info(usersResponse.getInfo())
+                    .build();
+        }
+
+        List<UserInfo> userInfos = new ArrayList<>(usersResponse.getData().size());
+        for (User user : usersResponse.getData()) {
+            userInfos.add(userDtoConverter.toUserInfo(user));
+        }
+        return Response.<List<UserInfo>>builder()
+                .code("200")
+                .info("获取用户信息成功")
+                .data(userInfos)
+                .build();
+    }
+
     /**
      * 使用token更新用户信息
      * @param userIdStr 用户ID字符串
@@ -201,7 +276,8 @@ public class UserAppService {
         }
         
         // 从token中解析用户ID
-        Long currentUserId = jwtUtil.validateToken(token);
+        TokenPayload payload = jwtUtil.parseToken(token);
+        Long currentUserId = payload == null ? null : payload.getUserId();
         if (currentUserId == null) {
             return Response.<UpdateUserInfoResponse>builder()
                     .code("401")
@@ -233,14 +309,13 @@ public class UserAppService {
                     .build();
         }
         
-        UpdateUserInfoResponse updateUserInfoResponse = new UpdateUserInfoResponse();
-        BeanUtils.copyProperties(user, updateUserInfoResponse);
-        // 将Long类型的userId转换为String类型避免前端精度问题
-        updateUserInfoResponse.setUserId(String.valueOf(user.getUserId()));
+        UpdateUserInfoResponse updateUserInfoResponse = userDtoConverter.toUpdateUserInfoResponse(user);
         
         // 无论userId是否变化，都生成新的token以确保安全性
-        String newToken = jwtUtil.generateToken(user.getUserId());
+        String newToken = jwtUtil.generateToken(user.getUserId(), userDtoConverter.toTokenProfile(user));
         updateUserInfoResponse.setNewToken(newToken);
+        // 新令牌签发后旧令牌立即失效
+        userDomainService.revokeToken(payload);
         
         return Response.<UpdateUserInfoResponse>builder()
                 .code("200")
@@ -255,6 +330,16 @@ public class UserAppService {
      * @return 当前登录用户信息
      */
     public Response<UserInfo> me(String token) {
+        // 登录拦截器已验证令牌并将当前用户放入上下文，直接复用，不再访问存储
+        UserInfo current = UserContext.getUserInfo();
+        if (current != null) {
+            return Response.<UserInfo>builder()
+                    .code("200")
+                    .info("获取用户信息成功")
+                    .data(current)
+                    .build();
+        }
+
         // 从token中解析用户ID
         Long userId = jwtUtil.validateToken(token);
         if (userId == null) {
@@ -268,6 +353,35 @@ public class UserAppService {
         return getUserInfo(String.valueOf(userId));
     }
 
+    /**
+     * 令牌是否已被吊销
+     * @param payload 已验签的令牌
+     * @return 是否已吊销
+     */
+    public boolean isTokenRevoked(TokenPayload payload) {
+        return userDomainService.isTokenRevoked(payload);
+    }
+
+    /**
+     * 退出登录，吊销当前令牌
+     * @param token 用户认证token
+     * @return 退出结果
+     */
+    public Response<String> logout(String token) {
+        TokenPayload payload = jwtUtil.parseToken(token);
+        if (payload == null) {
+            return Response.<String>builder()
+                    .code("401")
+                    .info("Token无效或已过期")
+                    .build();
+        }
+        userDomainService.revokeToken(payload);
+        return Response.<String>builder()
+                .code("200")
+                .info("退出登录成功")
+                .build();
+    }
+
     /**
      * 设置用户密码
      * @param request 设置密码请求
@@ -339,10 +453,10 @@ public class UserAppService {
      * @return 注册响应DTO
      */
     private RegisterDto convertToResponse(User user) {
-        RegisterDto registerDto = new RegisterDto();
-        BeanUtils.copyProperties(user, registerDto);
-        // 将Long类型的userId转换为String类型避免前端精度问题
-        registerDto.setUserId(String.valueOf(user.getUserId()));
-        return registerDto;
+        return userDtoConverter.toRegisterDto(user);
+    }
+
+    private long toEpochMilli(LocalDateTime time) {
+        return time == null ? -1 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.cypress.app.user;
 
 import com.cypress.dto.UserInfo;
+import com.cypress.persistence.cache.UserIdentityMap;
+import com.cypress.persistence.datasource.ReadWriteRouting;
 
 
 public class UserContext {
@@ -11,8 +13,22 @@ public class UserContext {
         return Thread.currentThread().getId();
     }
 
+    /**
+     * 开启请求作用域，同一请求内对同一用户的查询只访问一次存储，写操作之后的查询发往主库
+     */
+    public static void open() {
+        UserIdentityMap.open();
+        ReadWriteRouting.open();
+    }
+
+    /**
+     * 设置当前用户，并以用户ID作为读写分离的会话，用户刚写过数据时本次请求只读主库
+     */
     public static void setUserInfo(UserInfo userInfo) {
         USER_CONTEXT.set(userInfo);
+        if (userInfo != null) {
+            ReadWriteRouting.bindSession(userInfo.getUserId());
+        }
     }
 
     public static UserInfo getUserInfo() {
@@ -21,5 +37,7 @@ public class UserContext {
 
     public static void clear() {
         USER_CONTEXT.remove();
+        UserIdentityMap.close();
+        ReadWriteRouting.close();
     }
 }
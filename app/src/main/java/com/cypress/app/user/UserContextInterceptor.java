@@ -0,0 +1,27 @@
+package com.cypress.app.user;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 请求上下文拦截器
+ * 对所有API请求（包括登录、注册等公开接口）开启用户上下文，请求结束后清理
+ */
+@Component
+public class UserContextInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        UserContext.open();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // 清理ThreadLocal，防止线程复用时读到上一次请求的数据
+        UserContext.clear();
+    }
+}
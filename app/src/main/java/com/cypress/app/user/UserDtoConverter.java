@@ -0,0 +1,41 @@
+package com.cypress.app.user;
+
+import com.cypress.dto.RegisterDto;
+import com.cypress.dto.TokenPayload;
+import com.cypress.dto.TokenProfile;
+import com.cypress.dto.UpdateUserInfoResponse;
+import com.cypress.dto.UserInfo;
+import com.cypress.user.model.entity.User;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * 用户领域实体到接口DTO的转换器
+ * 实现类在编译期生成，DTO新增字段而领域实体中没有对应字段时编译失败；
+ * userId统一转换为字符串，避免前端精度问题
+ */
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface UserDtoConverter {
+
+    UserInfo toUserInfo(User user);
+
+    /**
+     * 由令牌中嵌入的资料构造用户信息，令牌中没有的字段为null
+     */
+    @BeanMapping(unmappedTargetPolicy = ReportingPolicy.IGNORE)
+    @Mapping(target = "username", source = "profile.username")
+    @Mapping(target = "avatarUrl", source = "profile.avatarUrl")
+    UserInfo toUserInfo(TokenPayload payload);
+
+    TokenProfile toTokenProfile(User user);
+
+    RegisterDto toRegisterDto(User user);
+
+    /**
+     * 新令牌由调用方生成后单独设置
+     */
+    @Mapping(target = "newToken", ignore = true)
+    UpdateUserInfoResponse toUpdateUserInfoResponse(User user);
+}
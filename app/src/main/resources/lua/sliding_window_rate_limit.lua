@@ -0,0 +1,27 @@
+-- 滑动窗口限流：按上一窗口计数的剩余权重加上当前窗口计数估算滑动窗口内的请求数
+-- KEYS[1] 当前窗口计数键, KEYS[2] 上一窗口计数键（两个键带相同的哈希标签）
+-- ARGV[1] 窗口内允许的请求数, ARGV[2] 窗口长度（毫秒）, ARGV[3] 当前时间在窗口内的偏移（毫秒）
+-- 返回值：0-放行，大于0-需要等待的毫秒数
+local permits = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local elapsed = tonumber(ARGV[3])
+
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+local estimated = previous * (window - elapsed) / window + current
+
+if estimated + 1 <= permits then
+    redis.call('INCR', KEYS[1])
+    redis.call('PEXPIRE', KEYS[1], window * 2)
+    return 0
+end
+
+local wait
+if current + 1 > permits then
+    -- 当前窗口已满，等到下一窗口中本窗口计数的权重衰减到足够小
+    wait = (window - elapsed) + window * (1 - (permits - 1) / current)
+else
+    -- 受上一窗口计数拖累，等到其权重衰减到足够小
+    wait = window - (permits - 1 - current) * window / previous - elapsed
+end
+return math.max(1, math.ceil(wait))
@@ -0,0 +1,24 @@
+package com.cypress.benchmark;
+
+import java.lang.reflect.Field;
+
+/**
+ * 基准测试辅助方法
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    /**
+     * 为通过 @Value 注入的字段赋值，使组件脱离Spring容器也能初始化
+     */
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法设置字段：" + name, e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.cypress.benchmark;
+
+import com.cypress.utils.JwtKeyManager;
+import com.cypress.utils.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT签发与验证
+ * validateToken 命中已验证令牌缓存，extractUserId 每次都完整验签，两者之差即缓存的收益
+ * ES256签名和验签都比HS256慢得多，换来的是其他服务只需公钥即可验签
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "MjRmZjBkMzYtYzU0Mi00YzI3LTkxZjYtNzQzMjUzZjQxYzI5";
+
+    @Param({"HS256", "ES256"})
+    private String algorithm;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        JwtKeyManager keyManager = new JwtKeyManager();
+        BenchmarkSupport.setField(keyManager, "algorithm", algorithm);
+        BenchmarkSupport.setField(keyManager, "secretKey", SECRET);
+        BenchmarkSupport.setField(keyManager, "keyDir", createKeyDir().toString());
+        BenchmarkSupport.setField(keyManager, "rescanIntervalMillis", 60000L);
+        keyManager.afterPropertiesSet();
+
+        jwtUtil = new JwtUtil();
+        BenchmarkSupport.setField(jwtUtil, "jwtKeyManager", keyManager);
+        BenchmarkSupport.setField(jwtUtil, "expiration", 86400000L);
+        BenchmarkSupport.setField(jwtUtil, "cacheMaximumSize", 10000L);
+        jwtUtil.afterPropertiesSet();
+        token = jwtUtil.generateToken(1234567890123L);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(1234567890123L);
+    }
+
+    @Benchmark
+    public Long validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Long verifySignature() {
+        return jwtUtil.extractUserId(token);
+    }
+
+    /**
+     * 生成一对P-256密钥写入临时目录
+     */
+    private static Path createKeyDir() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        Path dir = Files.createTempDirectory("jwt-keys");
+        dir.toFile().deleteOnExit();
+        writePem(dir.resolve("bench.key"), "PRIVATE KEY", keyPair.getPrivate().getEncoded());
+        writePem(dir.resolve("bench.pub"), "PUBLIC KEY", keyPair.getPublic().getEncoded());
+        return dir;
+    }
+
+    private static void writePem(Path file, String type, byte[] der) throws Exception {
+        String pem = "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+        Files.write(file, pem.getBytes(StandardCharsets.US_ASCII));
+        file.toFile().deleteOnExit();
+    }
+}
@@ -0,0 +1,57 @@
+package com.cypress.benchmark;
+
+import com.cypress.utils.PasswordEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt密码校验
+ * 按不同cost因子比较单次校验耗时，作为调整cost和密码哈希线程池大小的依据；
+ * PasswordEncoder.matches 使用当前线上的默认cost
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String RAW_PASSWORD = "Passw0rd!2024";
+
+    @Param({"4", "8", "10", "12"})
+    private int cost;
+
+    private BCryptPasswordEncoder encoder;
+    private String encodedPassword;
+    private String defaultEncodedPassword;
+
+    @Setup
+    public void setup() {
+        encoder = new BCryptPasswordEncoder(cost);
+        encodedPassword = encoder.encode(RAW_PASSWORD);
+        defaultEncodedPassword = PasswordEncoder.encode(RAW_PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matchesWithCost() {
+        return encoder.matches(RAW_PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    public boolean matchesDefault() {
+        return PasswordEncoder.matches(RAW_PASSWORD, defaultEncodedPassword);
+    }
+}
@@ -0,0 +1,50 @@
+package com.cypress.benchmark;
+
+import com.cypress.utils.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花ID生成吞吐量
+ * 所有线程共享同一个生成器，观察CAS竞争随线程数增加的变化；
+ * 单节点理论上限为每毫秒4096个，超过后依靠借用未来时间戳维持吞吐
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnowflakeIdBenchmark {
+
+    // 允许借用足够多的时间戳，避免基准测试中因超出借用上限而中断
+    private final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, TimeUnit.MINUTES.toMillis(10));
+
+    @Benchmark
+    @Threads(1)
+    public long nextId1Thread() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextId4Threads() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long nextIdMaxThreads() {
+        return generator.nextId();
+    }
+}
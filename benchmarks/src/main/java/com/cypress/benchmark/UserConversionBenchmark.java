@@ -0,0 +1,92 @@
+package com.cypress.benchmark;
+
+import com.cypress.app.user.UserDtoConverter;
+import com.cypress.app.user.UserDtoConverterImpl;
+import com.cypress.dto.UserInfo;
+import com.cypress.persistence.converter.UserPoConverter;
+import com.cypress.persistence.converter.UserPoConverterImpl;
+import com.cypress.persistence.po.UserPo;
+import com.cypress.user.model.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户对象转换
+ * 对比 UserRepository.convertToDomain（数据实体 -> 领域实体）
+ * 和 UserAppService.buildLoginResponse（领域实体 -> 用户信息）中原先的反射拷贝与编译期生成的转换器
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserConversionBenchmark {
+
+    private final UserPoConverter userPoConverter = new UserPoConverterImpl();
+    private final UserDtoConverter userDtoConverter = new UserDtoConverterImpl();
+
+    private UserPo userPo;
+    private User user;
+
+    @Setup
+    public void setup() {
+        LocalDateTime now = LocalDateTime.now();
+        userPo = new UserPo();
+        userPo.setId(1L);
+        userPo.setUserId(1234567890123L);
+        userPo.setUsername("benchmark");
+        userPo.setPhone("13800000000");
+        userPo.setEmail("benchmark@example.com");
+        userPo.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z2hS8kHXn5Ikzvw5yWfGZ0KS");
+        userPo.setAge(30);
+        userPo.setGender(1);
+        userPo.setAvatarUrl("https://example.com/avatar.png");
+        userPo.setBio("bio");
+        userPo.setSignature("signature");
+        userPo.setStatus(1);
+        userPo.setRole(0);
+        userPo.setCreateTime(now);
+        userPo.setUpdateTime(now);
+        userPo.setLastLoginTime(now);
+        user = poToDomainWithBeanUtils();
+    }
+
+    @Benchmark
+    public User poToDomainWithBeanUtils() {
+        User result = new User();
+        BeanUtils.copyProperties(userPo, result);
+        result.clearDirtyFields();
+        return result;
+    }
+
+    @Benchmark
+    public UserInfo domainToUserInfoWithBeanUtils() {
+        UserInfo userInfo = new UserInfo();
+        BeanUtils.copyProperties(user, userInfo);
+        userInfo.setUserId(String.valueOf(user.getUserId()));
+        return userInfo;
+    }
+
+    @Benchmark
+    public User poToDomainWithConverter() {
+        return userPoConverter.toDomain(userPo);
+    }
+
+    @Benchmark
+    public UserInfo domainToUserInfoWithConverter() {
+        return userDtoConverter.toUserInfo(user);
+    }
+}
@@ -16,6 +16,56 @@ public class Constants {
          * 测试阶段先设置一个很大很大的值
          */
         public static final long VERIFICATION_CODE_EXPIRE =5 * 60 * 1000L;
+
+        /**
+         * 验证码尝试次数键前缀
+         */
+        public static final String VERIFICATION_ATTEMPT_PREFIX = "verification:attempt:";
+
+        /**
+         * 同一验证码允许的最大错误次数，达到后验证码作废
+         */
+        public static final int VERIFICATION_MAX_ATTEMPTS = 5;
+
+        /**
+         * 限流计数键前缀
+         */
+        public static final String RATE_LIMIT_PREFIX = "rate:limit:";
+
+        /**
+         * 用户资料缓存键前缀
+         */
+        public static final String USER_PROFILE_PREFIX = "user:profile:";
+
+        /**
+         * 雪花算法机器ID租约键前缀
+         */
+        public static final String SNOWFLAKE_WORKER_PREFIX = "snowflake:worker:";
+
+        /**
+         * 按用户吊销令牌的水位键前缀，值为吊销时间（毫秒），签发时间早于该值的令牌失效
+         */
+        public static final String TOKEN_REVOKED_USER_PREFIX = "token:revoked:user:";
+
+        /**
+         * 已吊销令牌ID键前缀
+         */
+        public static final String TOKEN_REVOKED_JTI_PREFIX = "token:revoked:jti:";
+
+        /**
+         * 令牌吊销通知频道，各节点据此更新本地副本
+         */
+        public static final String TOKEN_REVOCATION_CHANNEL = "token:revocation";
+
+        /**
+         * 新增用户标识（userId、手机号、邮箱）通知频道，各节点据此更新本地存在性过滤器
+         */
+        public static final String USER_EXISTENCE_CHANNEL = "user:existence";
+
+        /**
+         * 存在性过滤器重建通知频道，绕过仓库批量写入用户表后发布，各节点收到后立即全量重建
+         */
+        public static final String USER_EXISTENCE_REBUILD_CHANNEL = "user:existence:rebuild";
     }
 
     /**
@@ -27,5 +77,10 @@ public class Constants {
          */
         public static final String USER = "user";
 
+        /**
+         * 批量查询用户的最大数量
+         */
+        public static final int BATCH_QUERY_MAX_SIZE = 200;
+
     }
 }
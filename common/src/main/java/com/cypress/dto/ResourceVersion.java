@@ -0,0 +1,24 @@
+package com.cypress.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 资源版本，用于HTTP条件请求
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceVersion {
+
+    /**
+     * 实体标签，资源内容变化时随之变化
+     */
+    private String eTag;
+
+    /**
+     * 最后修改时间（毫秒时间戳），未知时为-1
+     */
+    private long lastModified;
+}
@@ -0,0 +1,42 @@
+package com.cypress.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * JWT令牌解析结果
+ * 一次解析同时得到主体、令牌ID、签发时间和过期时间，避免重复验签
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenPayload {
+
+    /**
+     * 用户ID（令牌主体）
+     */
+    private Long userId;
+
+    /**
+     * 令牌ID，用于单个令牌的吊销
+     */
+    private String jti;
+
+    /**
+     * 签发时间（毫秒精度，旧版本签发的令牌为秒级），用于按用户批量吊销
+     */
+    private Date issuedAt;
+
+    /**
+     * 过期时间
+     */
+    private Date expiration;
+
+    /**
+     * 嵌入令牌的用户资料，签发时未嵌入则为null
+     */
+    private TokenProfile profile;
+}
@@ -0,0 +1,36 @@
+package com.cypress.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 嵌入JWT令牌的用户资料
+ * 只包含非敏感字段，令牌刷新前不会随资料修改而更新
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenProfile {
+
+    /**
+     * 用户名
+     */
+    private String username;
+
+    /**
+     * 头像url
+     */
+    private String avatarUrl;
+
+    /**
+     * 角色
+     */
+    private Integer role;
+
+    /**
+     * 状态：0-禁用 1-正常，拦截器拒绝非正常状态的令牌
+     * 嵌入的状态不会随禁用而更新，禁用账号时必须按用户吊销已签发的令牌
+     */
+    private Integer status;
+}
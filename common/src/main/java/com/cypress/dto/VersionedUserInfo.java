@@ -0,0 +1,24 @@
+package com.cypress.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 用户信息及其资源版本，两者取自同一次加载
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionedUserInfo {
+
+    /**
+     * 用户信息
+     */
+    private UserInfo userInfo;
+
+    /**
+     * 资源版本
+     */
+    private ResourceVersion version;
+}
@@ -10,7 +10,8 @@ import lombok.NoArgsConstructor;
 public enum VerificationResult {
     SUCCESS("200", "验证码验证成功"),
     INVALID("400", "验证码错误"),
-    EXPIRED("400", "验证码已过期");
+    EXPIRED("400", "验证码已过期"),
+    TOO_MANY_ATTEMPTS("429", "验证码错误次数过多，请重新获取");
 
     private String code;
     private String info;
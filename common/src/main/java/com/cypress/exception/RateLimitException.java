@@ -0,0 +1,19 @@
+package com.cypress.exception;
+
+import lombok.Getter;
+
+/**
+ * 请求被限流时抛出，由全局异常处理转换为 429 响应并设置 Retry-After
+ */
+@Getter
+public class RateLimitException extends AppException {
+    private static final long serialVersionUID = -3120583914436052317L;
+
+    /** 建议的重试等待时间（秒） */
+    private final long retryAfterSeconds;
+
+    public RateLimitException(long retryAfterSeconds) {
+        super("429", "请求过于频繁，请稍后重试");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package com.cypress.request;
+
+import com.cypress.constants.Constants;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@ApiModel(description = "批量获取用户信息请求")
+public class BatchUserInfoRequest {
+    @ApiModelProperty(value = "用户ID列表", required = true, example = "[\"1\", \"2\"]")
+    @NotEmpty(message = "用户ID列表不能为空")
+    @Size(max = Constants.UserConstants.BATCH_QUERY_MAX_SIZE, message = "单次最多查询200个用户")
+    private List<String> userIds;
+}
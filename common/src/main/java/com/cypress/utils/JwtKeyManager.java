@@ -0,0 +1,328 @@
+package com.cypress.utils;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * JWT密钥管理
+ * HS256模式使用 jwt.secret 派生的对称密钥，启动时构建一次；
+ * ES256模式从密钥目录加载P-256密钥对，签发的令牌带kid头，其他服务只需公钥（见JWKS）即可在本地验签
+ *
+ * 密钥目录中 {kid}.pub 为X.509格式公钥，{kid}.key 为PKCS#8格式私钥（均为PEM）；
+ * 只有公钥的kid仅用于验签，签名使用 active 文件指定的kid，未指定时使用同时具有私钥和公钥的最大kid
+ * 目录按固定间隔重新扫描，有变化时整体替换密钥集，加载失败时继续使用原密钥集
+ *
+ * 零停机轮换：先放入新公钥，待各服务刷新JWKS后再放入新私钥使其生效；
+ * 旧私钥随后即可删除，旧公钥至少保留一个令牌有效期
+ */
+@Slf4j
+@Component
+public class JwtKeyManager implements InitializingBean, DisposableBean {
+
+    private static final String PUBLIC_KEY_SUFFIX = ".pub";
+    private static final String PRIVATE_KEY_SUFFIX = ".key";
+    private static final String ACTIVE_FILE = "active";
+    private static final int P256_FIELD_SIZE = 256;
+
+    // 签名算法，HS256 或 ES256
+    @Value("${jwt.algorithm:HS256}")
+    private String algorithm;
+
+    // HS256密钥；ES256模式下配置时仍可验证此前签发的不带kid的令牌
+    @Value("${jwt.secret:}")
+    private String secretKey;
+
+    // ES256密钥目录
+    @Value("${jwt.keys.dir:}")
+    private String keyDir;
+
+    // 密钥目录重新扫描间隔
+    @Value("${jwt.keys.rescan-interval-ms:30000}")
+    private long rescanIntervalMillis;
+
+    private SignatureAlgorithm signatureAlgorithm;
+    private Key hmacKey;
+    private volatile KeySet keySet;
+    private String directoryFingerprint;
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        this.signatureAlgorithm = SignatureAlgorithm.forName(algorithm);
+        if (StringUtils.hasText(secretKey)) {
+            this.hmacKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        }
+
+        if (signatureAlgorithm == SignatureAlgorithm.HS256) {
+            if (hmacKey == null) {
+                throw new IllegalStateException("HS256模式必须配置 jwt.secret");
+            }
+            this.keySet = new KeySet(null, hmacKey, Collections.emptyMap());
+            return;
+        }
+        if (signatureAlgorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalStateException("不支持的JWT签名算法：" + algorithm);
+        }
+        if (!StringUtils.hasText(keyDir)) {
+            throw new IllegalStateException("ES256模式必须配置 jwt.keys.dir");
+        }
+
+        // 启动时加载失败直接报错，避免以无法签名的状态运行
+        reload();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("jwt-key-rescan-"));
+        scheduler.scheduleWithFixedDelay(this::reloadQuietly, rescanIntervalMillis, rescanIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取当前签名算法
+     */
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * 获取当前签名密钥，kid与密钥来自同一份密钥集
+     */
+    public KeySet getKeySet() {
+        return keySet;
+    }
+
+    /**
+     * 按令牌头查找验签密钥
+     * 带kid的令牌只接受ES256公钥，不带kid的令牌只接受HS256密钥，防止算法混淆
+     * @param kid 令牌头中的kid
+     * @param alg 令牌头中的签名算法
+     * @return 验签密钥
+     */
+    public Key resolveVerificationKey(String kid, String alg) {
+        if (kid == null) {
+            if (hmacKey == null || !SignatureAlgorithm.HS256.getValue().equals(alg)) {
+                throw new UnsupportedJwtException("令牌缺少kid");
+            }
+            return hmacKey;
+        }
+        PublicKey publicKey = keySet.getPublicKeys().get(kid);
+        if (publicKey == null || !SignatureAlgorithm.ES256.getValue().equals(alg)) {
+            throw new UnsupportedJwtException("未知的kid：" + kid);
+        }
+        return publicKey;
+    }
+
+    /**
+     * 以JWK Set格式导出全部公钥，供其他服务验签
+     * @return JWK Set，HS256模式下keys为空
+     */
+    public Map<String, Object> getJwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        keySet.getPublicKeys().forEach((kid, publicKey) -> keys.add(toJwk(kid, (ECPublicKey) publicKey)));
+        return Collections.singletonMap("keys", keys);
+    }
+
+    /**
+     * 目录有变化时重新加载密钥集
+     */
+    synchronized void reload() throws IOException {
+        Path dir = Paths.get(keyDir);
+        String fingerprint = fingerprint(dir);
+        if (fingerprint.equals(directoryFingerprint)) {
+            return;
+        }
+
+        Map<String, PublicKey> publicKeys = new TreeMap<>();
+        Map<String, PrivateKey> privateKeys = new TreeMap<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(PUBLIC_KEY_SUFFIX)) {
+                    publicKeys.put(kid(name, PUBLIC_KEY_SUFFIX), readPublicKey(file));
+                } else if (name.endsWith(PRIVATE_KEY_SUFFIX)) {
+                    privateKeys.put(kid(name, PRIVATE_KEY_SUFFIX), readPrivateKey(file));
+                }
+            }
+        }
+
+        String activeKid = activeKid(dir, publicKeys, privateKeys);
+        KeySet loaded = new KeySet(activeKid, privateKeys.get(activeKid), Collections.unmodifiableMap(publicKeys));
+        KeySet previous = this.keySet;
+        this.keySet = loaded;
+        this.directoryFingerprint = fingerprint;
+        if (previous == null || !activeKid.equals(previous.getKid())) {
+            log.info("JWT签名密钥已切换，kid：{}，可验签的kid：{}", activeKid, publicKeys.keySet());
+        } else {
+            log.info("JWT密钥集已更新，可验签的kid：{}", publicKeys.keySet());
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("重新加载JWT密钥失败，继续使用现有密钥集", e);
+        }
+    }
+
+    private String activeKid(Path dir, Map<String, PublicKey> publicKeys, Map<String, PrivateKey> privateKeys) throws IOException {
+        Path activeFile = dir.resolve(ACTIVE_FILE);
+        String activeKid;
+        if (Files.exists(activeFile)) {
+            activeKid = new String(Files.readAllBytes(activeFile), StandardCharsets.UTF_8).trim();
+        } else {
+            activeKid = privateKeys.keySet().stream()
+                    .filter(publicKeys::containsKey)
+                    .reduce((first, second) -> second)
+                    .orElse(null);
+        }
+        if (activeKid == null || !privateKeys.containsKey(activeKid) || !publicKeys.containsKey(activeKid)) {
+            throw new IllegalStateException("密钥目录中没有可用的签名密钥：" + dir);
+        }
+        return activeKid;
+    }
+
+    /**
+     * 文件名、修改时间和大小相同则认为目录未变化
+     */
+    private String fingerprint(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<String> entries = new ArrayList<>();
+            for (Path file : files.sorted().collect(Collectors.toList())) {
+                entries.add(file.getFileName() + ":" + Files.getLastModifiedTime(file).toMillis() + ":" + Files.size(file));
+            }
+            return String.join(",", entries);
+        }
+    }
+
+    private String kid(String fileName, String suffix) {
+        return fileName.substring(0, fileName.length() - suffix.length());
+    }
+
+    private PublicKey readPublicKey(Path file) throws IOException {
+        try {
+            PublicKey publicKey = KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(readPem(file)));
+            if (((ECPublicKey) publicKey).getParams().getCurve().getField().getFieldSize() != P256_FIELD_SIZE) {
+                throw new IllegalStateException("ES256只支持P-256公钥：" + file);
+            }
+            return publicKey;
+        } catch (IOException | IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("无法解析公钥：" + file, e);
+        }
+    }
+
+    private PrivateKey readPrivateKey(Path file) throws IOException {
+        try {
+            PrivateKey privateKey = KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(readPem(file)));
+            if (((ECPrivateKey) privateKey).getParams().getCurve().getField().getFieldSize() != P256_FIELD_SIZE) {
+                throw new IllegalStateException("ES256只支持P-256私钥：" + file);
+            }
+            return privateKey;
+        } catch (IOException | IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("无法解析私钥：" + file, e);
+        }
+    }
+
+    private byte[] readPem(Path file) throws IOException {
+        String body = Arrays.stream(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).split("\n"))
+                .filter(line -> !line.startsWith("-----"))
+                .collect(Collectors.joining());
+        return Base64.getMimeDecoder().decode(body);
+    }
+
+    private Map<String, Object> toJwk(String kid, ECPublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", SignatureAlgorithm.ES256.getValue());
+        jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+        jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+        return jwk;
+    }
+
+    /**
+     * 坐标编码为定长32字节的无符号大端序，再做Base64URL编码
+     */
+    private String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[P256_FIELD_SIZE / 8];
+        int length = Math.min(bytes.length, fixed.length);
+        System.arraycopy(bytes, bytes.length - length, fixed, fixed.length - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+
+    /**
+     * 不可变的密钥集，签名时一次读取，保证kid与签名密钥一致
+     */
+    public static final class KeySet {
+        private final String kid;
+        private final Key signingKey;
+        private final Map<String, PublicKey> publicKeys;
+
+        private KeySet(String kid, Key signingKey, Map<String, PublicKey> publicKeys) {
+            this.kid = kid;
+            this.signingKey = signingKey;
+            this.publicKeys = publicKeys;
+        }
+
+        /**
+         * 签名密钥的kid，HS256模式下为null
+         */
+        public String getKid() {
+            return kid;
+        }
+
+        public Key getSigningKey() {
+            return signingKey;
+        }
+
+        public Map<String, PublicKey> getPublicKeys() {
+            return publicKeys;
+        }
+    }
+}
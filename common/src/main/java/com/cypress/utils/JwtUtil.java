@@ -1,31 +1,100 @@
 package com.cypress.utils;
 
+import com.cypress.dto.TokenPayload;
+import com.cypress.dto.TokenProfile;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import java.util.function.Function;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
-public class JwtUtil {
-    // 从配置文件读取JWT密钥（建议在application.yml中配置）
-    @Value("${jwt.secret}")
-    private String secretKey;
+public class JwtUtil implements InitializingBean {
+
+    // 嵌入的用户资料声明
+    private static final String CLAIM_USERNAME = "username";
+    private static final String CLAIM_AVATAR_URL = "avatarUrl";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_STATUS = "status";
+    // 毫秒精度的签发时间，标准的 iat 声明只精确到秒，按用户吊销时无法区分同一秒内吊销前后签发的令牌
+    private static final String CLAIM_ISSUED_AT_MILLIS = "iatMs";
+
+    // 签名和验签密钥
+    @Autowired
+    private JwtKeyManager jwtKeyManager;
 
     // 令牌过期时间（例如24小时）
     @Value("${jwt.expiration}")
     private long expiration;
 
-    // 生成密钥（基于配置的secretKey）
-    private Key getSignInKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    // 是否在令牌中嵌入用户资料，开启后 /me 和登录拦截器在令牌刷新前不再访问存储
+    @Value("${jwt.embed-profile:false}")
+    private boolean embedProfile;
+
+    // 已验证令牌缓存的最大条目数
+    @Value("${jwt.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    // 解析器为不可变对象，启动时构建一次后复用，验签密钥按令牌头的kid从当前密钥集中查找
+    private JwtParser jwtParser;
+
+    // 已验证令牌缓存：key为令牌的SHA-256摘要，条目在令牌过期时失效
+    private Cache<String, TokenPayload> verifiedTokenCache;
+
+    // 签发和验签耗时，验签按结果区分缓存命中、验签通过和无效令牌
+    private Timer signTimer;
+    private Timer verifyCachedTimer;
+    private Timer verifyValidTimer;
+    private Timer verifyInvalidTimer;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return jwtKeyManager.resolveVerificationKey(header.getKeyId(), header.getAlgorithm());
+                    }
+                })
+                .build();
+        this.verifiedTokenCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, verifiedTokenCache, "jwt.verified");
+
+        this.signTimer = Timer.builder("jwt.sign").publishPercentileHistogram().register(Metrics.globalRegistry);
+        this.verifyCachedTimer = verifyTimer("cached");
+        this.verifyValidTimer = verifyTimer("valid");
+        this.verifyInvalidTimer = verifyTimer("invalid");
+    }
+
+    private Timer verifyTimer(String result) {
+        return Timer.builder("jwt.verify")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
     }
 
     /**
@@ -34,8 +103,23 @@ public class JwtUtil {
      * @return 令牌字符串
      */
     public String generateToken(Long userId) {
-        // 可选：添加自定义声明（如角色、用户名等）
+        return generateToken(userId, null);
+    }
+
+    /**
+     * 生成JWT令牌，开启 jwt.embed-profile 时同时嵌入用户资料
+     * @param userId 用户ID（作为令牌的主体）
+     * @param profile 用户资料，为null时不嵌入
+     * @return 令牌字符串
+     */
+    public String generateToken(Long userId, TokenProfile profile) {
         Map<String, Object> claims = new HashMap<>();
+        if (embedProfile && profile != null) {
+            claims.put(CLAIM_USERNAME, profile.getUsername());
+            claims.put(CLAIM_AVATAR_URL, profile.getAvatarUrl());
+            claims.put(CLAIM_ROLE, profile.getRole());
+            claims.put(CLAIM_STATUS, profile.getStatus());
+        }
         return createToken(claims, userId.toString());
     }
 
@@ -45,21 +129,25 @@ public class JwtUtil {
     private String createToken(Map<String, Object> claims, String subject) {
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + expiration);
+        JwtKeyManager.KeySet keySet = jwtKeyManager.getKeySet();
+        claims.put(CLAIM_ISSUED_AT_MILLIS, now.getTime());
 
-        return Jwts.builder()
+        return signTimer.record(() -> Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keySet.getKid()) // 密钥ID，HS256模式下为null，不写入令牌头
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString()) // 令牌ID，用于吊销
                 .setSubject(subject) // 主体（通常为用户ID）
                 .setIssuedAt(now) // 签发时间
                 .setExpiration(expirationDate) // 过期时间
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256) // 签名算法
-                .compact();
+                .signWith(keySet.getSigningKey(), jwtKeyManager.getSignatureAlgorithm()) // 签名算法
+                .compact());
     }
 
     /**
      * 从令牌中获取用户ID
      */
     public Long extractUserId(String token) {
-        return Long.parseLong(extractSubject(token));
+        return Long.parseLong(extractAllClaims(token).getSubject());
     }
 
     /**
@@ -68,39 +156,101 @@ public class JwtUtil {
      * @return 提取的用户ID，如果无效则返回null
      */
     public Long validateToken(String token) {
+        TokenPayload payload = parseToken(token);
+        return payload == null ? null : payload.getUserId();
+    }
+
+    /**
+     * 解析并验证令牌，一次验签同时返回主体和过期时间
+     * 验证通过的结果按令牌摘要缓存，直到令牌过期
+     * @param token 令牌
+     * @return 解析结果，如果无效或已过期则返回null
+     */
+    public TokenPayload parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        String digest = digest(token);
+        TokenPayload cached = verifiedTokenCache.getIfPresent(digest);
+        if (cached != null) {
+            // 缓存过期存在时间粒度误差，命中时仍需再次确认
+            TokenPayload result = isExpired(cached) ? null : cached;
+            (result == null ? verifyInvalidTimer : verifyCachedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        }
+
+        TokenPayload payload;
         try {
-            if (isTokenExpired(token)) {
-                return null;
-            }
-            return extractUserId(token);
+            Claims claims = extractAllClaims(token);
+            payload = new TokenPayload(Long.parseLong(claims.getSubject()), claims.getId(), extractIssuedAt(claims),
+                    claims.getExpiration(), extractProfile(claims));
         } catch (Exception e) {
+            verifyInvalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
+        }
+        if (payload.getExpiration() == null || isExpired(payload)) {
+            verifyInvalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             return null;
         }
+        verifiedTokenCache.put(digest, payload);
+        verifyValidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return payload;
     }
 
     // 以下为内部工具方法
-    private String extractSubject(String token) {
-        return extractClaim(token, Claims::getSubject);
+    private Claims extractAllClaims(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private Date extractIssuedAt(Claims claims) {
+        // 旧版本签发的令牌没有毫秒签发时间，退回到秒级的 iat
+        Long issuedAtMillis = claims.get(CLAIM_ISSUED_AT_MILLIS, Long.class);
+        return issuedAtMillis != null ? new Date(issuedAtMillis) : claims.getIssuedAt();
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    private TokenProfile extractProfile(Claims claims) {
+        // 以状态声明是否存在判断签发时是否嵌入了资料，与当前是否开启无关
+        if (!claims.containsKey(CLAIM_STATUS)) {
+            return null;
+        }
+        return new TokenProfile(claims.get(CLAIM_USERNAME, String.class), claims.get(CLAIM_AVATAR_URL, String.class),
+                claims.get(CLAIM_ROLE, Integer.class), claims.get(CLAIM_STATUS, Integer.class));
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private boolean isExpired(TokenPayload payload) {
+        return payload.getExpiration().getTime() <= System.currentTimeMillis();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // 所有JVM实现都必须支持SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 缓存条目在令牌的exp时刻过期
+     */
+    private static class TokenExpiry implements Expiry<String, TokenPayload> {
+        @Override
+        public long expireAfterCreate(String key, TokenPayload value, long currentTime) {
+            long remainingMillis = value.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenPayload value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenPayload value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+package com.cypress.utils;
+
+import com.cypress.exception.AppException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希执行器
+ * BCrypt 计算放到独立的有界线程池中执行，避免登录高峰占满 Tomcat 工作线程；
+ * 线程池和队列都满时立即拒绝（429），而不是让请求继续堆积
+ */
+@Component
+public class PasswordHashExecutor implements InitializingBean, DisposableBean {
+
+    private static final String METRIC_NAME = "password.hash";
+
+    // 线程数，小于等于0时取CPU核数
+    @Value("${password.hash.pool-size:0}")
+    private int poolSize;
+
+    // 等待队列容量
+    @Value("${password.hash.queue-capacity:64}")
+    private int queueCapacity;
+
+    // 单次调用等待结果的超时时间（毫秒）
+    @Value("${password.hash.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejectedCounter;
+    private Timer encodeTimer;
+    // 按哈希中的cost因子区分的校验耗时，cost取值有限，每种只注册一次
+    private final Map<String, Timer> matchesTimers = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterPropertiesSet() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rejectedCounter = Metrics.counter(METRIC_NAME + ".rejected");
+        this.encodeTimer = timer("encode", "default");
+        Metrics.gauge(METRIC_NAME + ".queue.size", executor, e -> e.getQueue().size());
+        Metrics.gauge(METRIC_NAME + ".active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 异步加密密码
+     * @param rawPassword 原始明文密码
+     * @return 加密后的密码
+     * @throws AppException 线程池饱和时抛出，异常码为429
+     */
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        return submit(encodeTimer, () -> PasswordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 异步校验密码
+     * @param rawPassword 原始明文密码
+     * @param encodedPassword 加密后的密码
+     * @return 是否匹配
+     * @throws AppException 线程池饱和时抛出，异常码为429
+     */
+    public CompletableFuture<Boolean> matchesAsync(String rawPassword, String encodedPassword) {
+        // 参数为空时无需占用线程池
+        if (rawPassword == null || encodedPassword == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Timer timer = matchesTimers.computeIfAbsent(costOf(encodedPassword), cost -> timer("matches", cost));
+        return submit(timer, () -> PasswordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 加密密码并等待结果
+     */
+    public String encode(String rawPassword) {
+        return await(encodeAsync(rawPassword));
+    }
+
+    /**
+     * 校验密码并等待结果
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(matchesAsync(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 等待异步结果，超时或失败时转换为业务异常
+     */
+    public <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new AppException("503", "密码校验超时，请稍后重试", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException("503", "密码校验被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AppException("500", "密码校验失败", e.getCause());
+        }
+    }
+
+    private Timer timer(String operation, String cost) {
+        return Timer.builder(METRIC_NAME)
+                .tag("operation", operation)
+                .tag("cost", cost)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(task), executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new AppException("429", "登录请求过多，请稍后重试", e);
+        }
+    }
+
+    /**
+     * 从BCrypt哈希中取出cost因子，格式为 $2a$10$...
+     */
+    private String costOf(String encodedPassword) {
+        if (encodedPassword.length() > 6 && encodedPassword.charAt(0) == '$' && encodedPassword.charAt(6) == '$') {
+            return encodedPassword.substring(4, 6);
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,34 @@
+package com.cypress.utils;
+
+/**
+ * 手机号格式校验，规则与 ^1[3-9]\d{9}$ 相同
+ * 逐字符判断，不编译正则表达式，登录和批量导入时每次调用都不产生额外对象
+ */
+public final class PhoneValidator {
+
+    private static final int LENGTH = 11;
+
+    private PhoneValidator() {}
+
+    /**
+     * 是否为有效的手机号
+     * @param phone 手机号
+     * @return 11位数字，以1开头且第二位为3-9时返回true
+     */
+    public static boolean isValid(CharSequence phone) {
+        if (phone == null || phone.length() != LENGTH || phone.charAt(0) != '1') {
+            return false;
+        }
+        char second = phone.charAt(1);
+        if (second < '3' || second > '9') {
+            return false;
+        }
+        for (int i = 2; i < LENGTH; i++) {
+            char c = phone.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -39,8 +39,12 @@ public class ResponseUtil {
                 return HttpStatus.FORBIDDEN;
             case "404":
                 return HttpStatus.NOT_FOUND;
+            case "429":
+                return HttpStatus.TOO_MANY_REQUESTS;
             case "500":
                 return HttpStatus.INTERNAL_SERVER_ERROR;
+            case "503":
+                return HttpStatus.SERVICE_UNAVAILABLE;
             default:
                 // 默认返回200状态码
                 return HttpStatus.OK;
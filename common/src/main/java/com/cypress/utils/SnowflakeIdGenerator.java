@@ -1,13 +1,18 @@
 package com.cypress.utils;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Twitter Snowflake ID 生成器
  * 64位ID结构: 1位符号位 + 41位时间戳 + 10位机器ID + 12位序列号
+ * 时间戳和序列号打包在同一个原子变量中，通过CAS无锁生成；
+ * 同一毫秒序列号用尽或时钟小幅回拨时，向未来借用时间戳而不是自旋等待或直接报错
+ * 机器ID通过租约分配时设置有效截止时间，超过后拒绝生成ID，避免租约过期被其他节点占用后生成重复ID
  */
 public class SnowflakeIdGenerator {
     // 起始时间戳 (2022-01-01)
     private final static long START_TIMESTAMP = 1640995200000L;
-    
+
     // 各部分位数
     private final static long MACHINE_BIT = 10;   // 机器标识位数
     private final static long SEQUENCE_BIT = 12;  // 序列号位数
@@ -15,68 +20,106 @@ public class SnowflakeIdGenerator {
     // 各部分最大值
     private final static long MAX_SEQUENCE = ~(-1L << SEQUENCE_BIT);
     private final static long MAX_MACHINE_NUM = ~(-1L << MACHINE_BIT);
-    
+
     // 各部分偏移量
     private final static long MACHINE_LEFT = SEQUENCE_BIT;
     private final static long TIMESTAMP_LEFT = SEQUENCE_BIT + MACHINE_BIT;
-    
-    private long machineId;     // 机器标识
-    private long sequence = 0L; // 序列号
-    private long lastTimestamp = -1L; // 上一次时间戳
-    
+
+    // 默认允许时间戳领先系统时钟的最大毫秒数
+    private final static long DEFAULT_MAX_BORROW_MILLIS = 2000L;
+
+    private final long machineId;       // 机器标识
+    private final long maxBorrowMillis; // 允许借用的最大毫秒数
+
+    // 机器ID的有效截止时间（毫秒时间戳），超过后拒绝生成ID
+    private volatile long validUntilMillis = Long.MAX_VALUE;
+
+    // 高位为相对起始时间的时间戳，低12位为序列号；序列号溢出时自然进位到下一毫秒
+    private final AtomicLong state = new AtomicLong();
+
     /**
      * 构造函数
      * @param machineId 机器ID (0-1023)
      */
     public SnowflakeIdGenerator(long machineId) {
+        this(machineId, DEFAULT_MAX_BORROW_MILLIS);
+    }
+
+    /**
+     * 构造函数
+     * @param machineId 机器ID (0-1023)
+     * @param maxBorrowMillis 允许时间戳领先系统时钟的最大毫秒数，超过时视为时钟严重回拨
+     */
+    public SnowflakeIdGenerator(long machineId, long maxBorrowMillis) {
         if (machineId > MAX_MACHINE_NUM || machineId < 0) {
             throw new IllegalArgumentException("machineId must be between 0 and " + MAX_MACHINE_NUM);
         }
+        if (maxBorrowMillis < 0) {
+            throw new IllegalArgumentException("maxBorrowMillis must not be negative");
+        }
         this.machineId = machineId;
+        this.maxBorrowMillis = maxBorrowMillis;
     }
-    
+
     /**
      * 生成下一个ID
      * @return 生成的雪花ID
      */
-    public synchronized long nextId() {
-        long currTimestamp = getNewTimestamp();
-        
-        if (currTimestamp < lastTimestamp) {
-            throw new RuntimeException("Clock moved backwards. Refusing to generate id");
-        }
-        
-        if (currTimestamp == lastTimestamp) {
-            // 相同毫秒内，序列号自增
-            sequence = (sequence + 1) & MAX_SEQUENCE;
-            // 同一毫秒的序列数已经达到最大
-            if (sequence == 0L) {
-                currTimestamp = getNextTimestamp();
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BIT;
+            long now = getNewTimestamp();
+            if (now > validUntilMillis) {
+                throw new IllegalStateException("Machine id " + machineId + " lease expired. Refusing to generate id");
+            }
+            long currTimestamp = now - START_TIMESTAMP;
+
+            long next;
+            if (currTimestamp > lastTimestamp) {
+                // 进入新的毫秒，序列号从0开始
+                next = currTimestamp << SEQUENCE_BIT;
+            } else {
+                // 相同毫秒或时钟回拨，序列号自增，溢出时借用下一毫秒
+                next = current + 1;
+                if ((next >>> SEQUENCE_BIT) - currTimestamp > maxBorrowMillis) {
+                    throw new IllegalStateException("Clock moved backwards by more than " + maxBorrowMillis
+                            + "ms. Refusing to generate id");
+                }
+            }
+
+            if (state.compareAndSet(current, next)) {
+                return (next >>> SEQUENCE_BIT) << TIMESTAMP_LEFT // 时间戳部分
+                        | machineId << MACHINE_LEFT               // 机器标识部分
+                        | (next & MAX_SEQUENCE);                  // 序列号部分
             }
-        } else {
-            // 不同毫秒内，序列号置为0
-            sequence = 0L;
         }
-        
-        lastTimestamp = currTimestamp;
-        
-        return (currTimestamp - START_TIMESTAMP) << TIMESTAMP_LEFT // 时间戳部分
-                | machineId << MACHINE_LEFT                       // 机器标识部分
-                | sequence;                                       // 序列号部分
     }
-    
+
     /**
-     * 获取下一个毫秒数
-     * @return 下一个毫秒数
+     * 获取机器ID
+     * @return 机器ID
      */
-    private long getNextTimestamp() {
-        long timestamp = getNewTimestamp();
-        while (timestamp <= lastTimestamp) {
-            timestamp = getNewTimestamp();
-        }
-        return timestamp;
+    public long getMachineId() {
+        return machineId;
+    }
+
+    /**
+     * 获取允许借用的最大毫秒数
+     * @return 最大借用毫秒数
+     */
+    public long getMaxBorrowMillis() {
+        return maxBorrowMillis;
     }
-    
+
+    /**
+     * 设置机器ID的有效截止时间，由租约续期时延长
+     * @param validUntilMillis 截止时间（毫秒时间戳），Long.MAX_VALUE表示不限制
+     */
+    public void setValidUntil(long validUntilMillis) {
+        this.validUntilMillis = validUntilMillis;
+    }
+
     /**
      * 获取当前时间戳
      * @return 当前时间戳
@@ -84,10 +127,26 @@ public class SnowflakeIdGenerator {
     private long getNewTimestamp() {
         return System.currentTimeMillis();
     }
-    
-    // 默认实例
-    private static SnowflakeIdGenerator instance = new SnowflakeIdGenerator(1);
-    
+
+    // 默认实例，启动时由配置或Redis租约替换为本节点的机器ID
+    private static volatile SnowflakeIdGenerator instance = new SnowflakeIdGenerator(1);
+
+    /**
+     * 使用指定机器ID重新初始化默认实例
+     * @param machineId 机器ID (0-1023)
+     */
+    public static void initDefault(long machineId) {
+        instance = new SnowflakeIdGenerator(machineId);
+    }
+
+    /**
+     * 获取默认实例
+     * @return 默认实例
+     */
+    public static SnowflakeIdGenerator getDefault() {
+        return instance;
+    }
+
     /**
      * 获取默认实例生成的ID
      * @return 雪花ID
@@ -95,4 +154,4 @@ public class SnowflakeIdGenerator {
     public static long generateId() {
         return instance.nextId();
     }
-}
\ No newline at end of file
+}
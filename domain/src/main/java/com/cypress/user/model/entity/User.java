@@ -2,19 +2,30 @@ package com.cypress.user.model.entity;
 
 import com.cypress.constants.Constants;
 import com.cypress.utils.SnowflakeIdGenerator;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.FieldNameConstants;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 用户实体 - 领域层
  * 包含用户的核心业务属性和行为
+ * 通过setter修改的字段会被记录下来，仓库更新时只写入这些字段
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@FieldNameConstants
 public class User {
 
     public static String defaultRawPassword ="515221";
@@ -99,6 +110,15 @@ public class User {
      */
     private LocalDateTime lastLoginTime;
 
+    /**
+     * 自加载或上次持久化以来被修改过的字段名
+     */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @FieldNameConstants.Exclude
+    private final Set<String> dirtyFields = new HashSet<>();
+
     /**
      * 注册用户
      * @param phone 手机号
@@ -122,6 +142,110 @@ public class User {
         this.lastLoginTime = LocalDateTime.now();
     }
 
+    // 以下setter在值发生变化时记录被修改的字段
+
+    public void setUserId(Long userId) {
+        markDirty(Fields.userId, this.userId, userId);
+        this.userId = userId;
+    }
+
+    public void setPhone(String phone) {
+        markDirty(Fields.phone, this.phone, phone);
+        this.phone = phone;
+    }
+
+    public void setPassword(String password) {
+        markDirty(Fields.password, this.password, password);
+        this.password = password;
+    }
+
+    public void setEmail(String email) {
+        markDirty(Fields.email, this.email, email);
+        this.email = email;
+    }
+
+    public void setUsername(String username) {
+        markDirty(Fields.username, this.username, username);
+        this.username = username;
+    }
+
+    public void setAge(Integer age) {
+        markDirty(Fields.age, this.age, age);
+        this.age = age;
+    }
+
+    public void setGender(Integer gender) {
+        markDirty(Fields.gender, this.gender, gender);
+        this.gender = gender;
+    }
+
+    public void setAvatarUrl(String avatarUrl) {
+        markDirty(Fields.avatarUrl, this.avatarUrl, avatarUrl);
+        this.avatarUrl = avatarUrl;
+    }
+
+    public void setBio(String bio) {
+        markDirty(Fields.bio, this.bio, bio);
+        this.bio = bio;
+    }
+
+    public void setSignature(String signature) {
+        markDirty(Fields.signature, this.signature, signature);
+        this.signature = signature;
+    }
+
+    public void setStatus(Integer status) {
+        markDirty(Fields.status, this.status, status);
+        this.status = status;
+    }
+
+    public void setRole(Integer role) {
+        markDirty(Fields.role, this.role, role);
+        this.role = role;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        markDirty(Fields.createTime, this.createTime, createTime);
+        this.createTime = createTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        markDirty(Fields.updateTime, this.updateTime, updateTime);
+        this.updateTime = updateTime;
+    }
+
+    public void setLastLoginTime(LocalDateTime lastLoginTime) {
+        markDirty(Fields.lastLoginTime, this.lastLoginTime, lastLoginTime);
+        this.lastLoginTime = lastLoginTime;
+    }
+
+    /**
+     * 获取被修改过的字段名
+     * @return 只读的字段名集合
+     */
+    public Set<String> dirtyFields() {
+        return Collections.unmodifiableSet(dirtyFields);
+    }
+
+    /**
+     * 是否有未持久化的修改
+     */
+    public boolean hasDirtyFields() {
+        return !dirtyFields.isEmpty();
+    }
+
+    /**
+     * 清空修改记录，在加载完成或持久化之后调用
+     */
+    public void clearDirtyFields() {
+        dirtyFields.clear();
+    }
+
+    private void markDirty(String field, Object oldValue, Object newValue) {
+        if (!Objects.equals(oldValue, newValue)) {
+            dirtyFields.add(field);
+        }
+    }
 
     /**
      * 生成默认用户名
@@ -0,0 +1,33 @@
+package com.cypress.user.repository;
+
+import java.util.Date;
+
+/**
+ * 令牌吊销仓库接口 - 领域层
+ * 支持吊销单个令牌和吊销某用户在某时刻之前签发的全部令牌
+ */
+public interface ITokenRevocationRepository {
+
+    /**
+     * 吊销单个令牌
+     * @param jti 令牌ID
+     * @param expiration 令牌过期时间，过期后无需再记录
+     */
+    void revoke(String jti, Date expiration);
+
+    /**
+     * 吊销用户在指定时刻之前签发的全部令牌，该时刻及之后签发的令牌不受影响
+     * @param userId 用户ID
+     * @param revokedAt 吊销时刻
+     */
+    void revokeAllIssuedBefore(Long userId, Date revokedAt);
+
+    /**
+     * 令牌是否已被吊销，只查询本地副本，正常情况下不访问Redis
+     * @param userId 用户ID
+     * @param jti 令牌ID
+     * @param issuedAt 签发时间
+     * @return 是否已吊销
+     */
+    boolean isRevoked(Long userId, String jti, Date issuedAt);
+}
@@ -3,6 +3,8 @@ package com.cypress.user.repository;
 import com.cypress.enums.VerificationResult;
 import com.cypress.user.model.entity.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,6 +19,42 @@ public interface IUserRepository {
      */
     User findByPhone(String phone);
 
+    /**
+     * 根据手机号查找用户，只包含鉴权所需字段（id、userId、password、status）
+     * @param phone 手机号
+     * @return 用户实体
+     */
+    User findAuthByPhone(String phone);
+
+    /**
+     * 根据邮箱查找用户，只包含鉴权所需字段（id、userId、password、status）
+     * @param email 邮箱
+     * @return 用户实体
+     */
+    User findAuthByEmail(String email);
+
+    /**
+     * 手机号是否已被使用
+     * @param phone 手机号
+     * @return 是否存在
+     */
+    boolean existsByPhone(String phone);
+
+    /**
+     * 邮箱是否已被其他用户使用
+     * @param email 邮箱
+     * @param excludeUserId 排除的用户ID，为null时不排除
+     * @return 是否存在
+     */
+    boolean existsByEmail(String email, Long excludeUserId);
+
+    /**
+     * 用户ID是否已被使用
+     * @param userId 用户ID
+     * @return 是否存在
+     */
+    boolean existsByUserId(Long userId);
+
     /**
      * 根据用户名查找用户
      * @param username 用户名
@@ -31,6 +69,14 @@ public interface IUserRepository {
      */
     List<User> findAllByUsername(String username);
 
+    /**
+     * 根据用户名查找登录候选用户，只包含鉴权所需字段（id、userId、password、status）
+     * @param username 用户名
+     * @param limit 最多返回的候选数，小于等于0表示不限制
+     * @return 候选用户列表，正常状态和最近登录的用户优先
+     */
+    List<User> findAuthCandidatesByUsername(String username, int limit);
+
     /**
      * 保存用户
      * @param user 用户实体
@@ -39,12 +85,27 @@ public interface IUserRepository {
     User save(User user);
 
     /**
-     * 根据ID查找用户
+     * 根据ID查找用户，用于登录、鉴权和修改等需要准确结果的场景
      * @param userId 用户ID
      * @return 用户实体
      */
     User findByUserId(Long userId);
 
+    /**
+     * 根据ID查找公开资料，先经过存在性过滤器，一定不存在的ID不访问缓存和数据库
+     * 过滤器在节点间异步同步，其他节点刚注册的用户可能短暂查不到，只能用于按userId查看他人资料这类可枚举的公开查询
+     * @param userId 用户ID
+     * @return 用户实体
+     */
+    User findProfileByUserId(Long userId);
+
+    /**
+     * 根据ID批量查找公开资料，与 findProfileByUserId 一样先经过存在性过滤器
+     * @param userIds 用户ID集合
+     * @return 用户实体列表，按传入顺序排列，不存在的用户不包含在内
+     */
+    List<User> findProfilesByUserIds(Collection<Long> userIds);
+
     /**
      * 更新用户
      * @param user 用户实体
@@ -52,6 +113,22 @@ public interface IUserRepository {
      */
     User update(User user);
 
+    /**
+     * 更新用户被修改过的字段
+     * @param user 用户实体
+     * @param reload 是否在更新后重新查询用户
+     * @return reload为true时返回重新查询的用户，否则返回传入的用户
+     */
+    User update(User user, boolean reload);
+
+    /**
+     * 记录用户最后登录时间
+     * 异步合并写入，同一用户只保留最新的时间
+     * @param userId 用户ID
+     * @param lastLoginTime 最后登录时间
+     */
+    void recordLastLogin(Long userId, LocalDateTime lastLoginTime);
+
     /**
      * 保存验证码
      * @param phone 手机号
@@ -74,19 +151,13 @@ public interface IUserRepository {
      */
     User findByEmail(String email);
 
-    /**
-     * 根据数据库主键查找用户
-     * @param id 数据库主键
-     * @return 用户实体
-     */
-    User findById(Long id);
-
     /**
      * 更新用户ID
-     * @param id 用户主键ID
+     * 分库分表时userId是分片键，新旧userId不在同一分片时用户数据会迁移到新分片
+     * @param userId 当前的用户业务ID
      * @param newUserId 新的用户业务ID
      * @return 更新后的用户
      */
-    User updateUserId(Long id, Long newUserId);
+    User updateUserId(Long userId, Long newUserId);
 
 }
@@ -1,10 +1,13 @@
 package com.cypress.user.service;
 
+import com.cypress.dto.TokenPayload;
 import com.cypress.enums.VerificationResult;
 import com.cypress.request.UpdateUserInfoRequest;
 import com.cypress.response.Response;
 import com.cypress.user.model.entity.User;
 
+import java.util.List;
+
 public interface IUserDomainService {
     String sendCode(String phone);
     Response<User> register(String phone, String code);
@@ -12,8 +15,12 @@ public interface IUserDomainService {
     Response<User> loginByCode(String loginKey, String code);
     VerificationResult validCode(String phone, String code);
     Response<User> getUserInfo(Long userId);
+    Response<User> getUserProfile(Long userId);
+    Response<List<User>> getUserInfos(List<Long> userIds);
     Response<User> updateUserInfo(Long userId, UpdateUserInfoRequest UserInfoRequest);
     Response<User> setPassword(Long userId, String password);
     Response<String> setPhone(Long userId, String phone);
+    boolean isTokenRevoked(TokenPayload payload);
+    void revokeToken(TokenPayload payload);
 
 }
\ No newline at end of file
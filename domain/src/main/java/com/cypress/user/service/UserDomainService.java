@@ -1,23 +1,31 @@
 package com.cypress.user.service;
 
+import com.cypress.constants.Constants;
 import com.cypress.dto.RegisterDto;
+import com.cypress.dto.TokenPayload;
 import com.cypress.dto.UserInfo;
 import com.cypress.enums.VerificationResult;
+import com.cypress.exception.AppException;
 import com.cypress.request.UpdateUserInfoRequest;
 import com.cypress.response.Response;
+import com.cypress.user.repository.ITokenRevocationRepository;
 import com.cypress.user.repository.IUserRepository;
 import com.cypress.utils.CodeUtil;
-import com.cypress.utils.PasswordEncoder;
+import com.cypress.utils.PasswordHashExecutor;
+import com.cypress.utils.PhoneValidator;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import com.cypress.user.model.entity.User;
 
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 用户领域服务 - 领域层
@@ -31,6 +39,17 @@ public class UserDomainService implements IUserDomainService{
 
     @Autowired
     private IUserRepository userRepository;
+
+    @Autowired
+    private PasswordHashExecutor passwordHashExecutor;
+
+    @Autowired
+    private ITokenRevocationRepository tokenRevocationRepository;
+
+    // 用户名登录时最多校验的同名候选数，小于等于0表示不限制
+    // 超出上限的同名用户（状态异常或很久未登录的排在后面）无法用用户名登录，只能用手机号或邮箱
+    @Value("${user.login.username-candidate-limit:5}")
+    private int usernameCandidateLimit;
     /**
      * 发送验证码
      * @param phone 手机号
@@ -77,8 +96,7 @@ public class UserDomainService implements IUserDomainService{
         }
 
         // 检查手机号是否已注册
-        User existingUser = userRepository.findByPhone(phone);
-        if (existingUser != null) {
+        if (userRepository.existsByPhone(phone)) {
             return Response.<User>builder()
                     .code("400")
                     .info("手机号已被注册")
@@ -114,23 +132,45 @@ public class UserDomainService implements IUserDomainService{
      */
     @Override
     public Response<User> loginByPassword(String loginKey, String password) {
+        try {
+            return doLoginByPassword(loginKey, password);
+        } catch (AppException e) {
+            // 密码校验线程池饱和或超时，快速失败
+            return Response.<User>builder()
+                    .code(e.getCode())
+                    .info(e.getInfo())
+                    .build();
+        }
+    }
+
+    private Response<User> doLoginByPassword(String loginKey, String password) {
         User user = null;
-        // 根据登录标识类型查找用户
-        if (loginKey.matches("^1[3-9]\\d{9}$")) {
+        boolean passwordVerified = false;
+        // 根据登录标识类型查找用户，这里只取鉴权所需字段
+        if (PhoneValidator.isValid(loginKey)) {
             // 手机号登录
-            user = userRepository.findByPhone(loginKey);
+            user = userRepository.findAuthByPhone(loginKey);
         } else if (loginKey.contains("@")) {
             // 邮箱登录
-            user = userRepository.findByEmail(loginKey);
+            user = userRepository.findAuthByEmail(loginKey);
         } else {
-            // 用户名登录
-            List<User> users = userRepository.findAllByUsername(loginKey);
-            if (users.size() == 1) {
-                user = users.get(0);
-            } else if (users.size() > 1) {
-                // 多个同名用户，需要通过密码匹配找到正确的用户
-                user = findUserByPassword(users, password);
+            // 用户名登录：用户名可重复，只取有限个候选的鉴权字段并行校验密码
+            List<User> candidates = userRepository.findAuthCandidatesByUsername(loginKey, usernameCandidateLimit);
+            if (candidates.isEmpty()) {
+                return Response.<User>builder()
+                        .code("400")
+                        .info("用户不存在")
+                        .build();
             }
+            User matched = findUserByPassword(candidates, password);
+            if (matched == null) {
+                return Response.<User>builder()
+                        .code("400")
+                        .info("密码错误")
+                        .build();
+            }
+            user = matched;
+            passwordVerified = true;
         }
 
         // 检查用户是否存在
@@ -141,17 +181,27 @@ public class UserDomainService implements IUserDomainService{
                     .build();
         }
 
-        // 检查密码是否正确
-        if (!PasswordEncoder.matches(password, user.getPassword())) {
+        // 检查密码是否正确（用户名登录已在候选匹配时校验过）
+        if (!passwordVerified && !passwordHashExecutor.matches(password, user.getPassword())) {
             return Response.<User>builder()
                     .code("400")
                     .info("密码错误")
                     .build();
         }
 
-        // 更新最后登录时间
-        user.setLastLoginTime(LocalDateTime.now());
-        userRepository.update(user);
+        // 密码校验通过，再加载完整的用户信息
+        user = userRepository.findByUserId(user.getUserId());
+        if (user == null) {
+            return Response.<User>builder()
+                    .code("400")
+                    .info("用户不存在")
+                    .build();
+        }
+
+        // 更新最后登录时间，由后台合并写入，不阻塞登录
+        LocalDateTime now = LocalDateTime.now();
+        user.setLastLoginTime(now);
+        userRepository.recordLastLogin(user.getUserId(), now);
 
         return Response.<User>builder()
                 .code("200")
@@ -197,8 +247,9 @@ public class UserDomainService implements IUserDomainService{
                     .info("用户不存在")
                     .build();
         }
-        user.setLastLoginTime(LocalDateTime.now());
-        userRepository.update(user);
+        LocalDateTime now = LocalDateTime.now();
+        user.setLastLoginTime(now);
+        userRepository.recordLastLogin(user.getUserId(), now);
         return Response.<User>builder()
                 .code("200")
                 .info("登录成功")
@@ -241,10 +292,20 @@ public class UserDomainService implements IUserDomainService{
                     .build();
         }
 
-        String encodedPassword = PasswordEncoder.encode(password);
+        String encodedPassword;
+        try {
+            encodedPassword = passwordHashExecutor.encode(password);
+        } catch (AppException e) {
+            return Response.<User>builder()
+                    .code(e.getCode())
+                    .info(e.getInfo())
+                    .build();
+        }
         user.setPassword(encodedPassword);
         user.setUpdateTime(LocalDateTime.now());
-        userRepository.update(user);
+        userRepository.update(user, false);
+        // 修改密码后此前签发的令牌全部失效
+        tokenRevocationRepository.revokeAllIssuedBefore(userId, new Date());
         return Response.<User>builder()
                 .code("200")
                 .info("设置密码成功")
@@ -266,7 +327,7 @@ public class UserDomainService implements IUserDomainService{
                     .build();
         }
         user.setPhone(phone);
-        userRepository.update(user);
+        userRepository.update(user, false);
         return Response.<String>builder()
                 .code("200")
                 .info("设置手机号成功")
@@ -274,6 +335,30 @@ public class UserDomainService implements IUserDomainService{
                 .build();
     }
 
+    /**
+     * 令牌是否已被吊销
+     * @param payload 已验签的令牌
+     * @return 是否已吊销
+     */
+    @Override
+    public boolean isTokenRevoked(TokenPayload payload) {
+        return tokenRevocationRepository.isRevoked(payload.getUserId(), payload.getJti(), payload.getIssuedAt());
+    }
+
+    /**
+     * 吊销单个令牌，用于退出登录和令牌刷新
+     * @param payload 已验签的令牌
+     */
+    @Override
+    public void revokeToken(TokenPayload payload) {
+        if (payload.getJti() == null) {
+            // 旧版本签发的令牌没有令牌ID，只能按签发时间吊销该用户的全部令牌，水位比签发时间晚1毫秒以包含该令牌本身
+            tokenRevocationRepository.revokeAllIssuedBefore(payload.getUserId(), new Date(payload.getIssuedAt().getTime() + 1));
+            return;
+        }
+        tokenRevocationRepository.revoke(payload.getJti(), payload.getExpiration());
+    }
+
     /**获取用户信息
      * @param userId
      * @return
@@ -295,6 +380,54 @@ public class UserDomainService implements IUserDomainService{
         }
     }
 
+    /**
+     * 获取他人的公开资料，一定不存在的用户ID由存在性过滤器直接拒绝
+     * @param userId 用户ID
+     * @return 用户
+     */
+    @Override
+    public Response<User> getUserProfile(Long userId) {
+        User user = userRepository.findProfileByUserId(userId);
+        if (user == null) {
+            return Response.<User>builder()
+                    .code("400")
+                    .info("用户不存在")
+                    .build();
+        }
+        return Response.<User>builder()
+                .code("200")
+                .info("获取用户信息成功")
+                .data(user)
+                .build();
+    }
+
+    /**
+     * 批量获取用户信息
+     * @param userIds 用户ID列表
+     * @return 存在的用户列表，按传入顺序排列
+     */
+    @Override
+    public Response<List<User>> getUserInfos(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Response.<List<User>>builder()
+                    .code("400")
+                    .info("用户ID列表不能为空")
+                    .build();
+        }
+        if (userIds.size() > Constants.UserConstants.BATCH_QUERY_MAX_SIZE) {
+            return Response.<List<User>>builder()
+                    .code("400")
+                    .info("单次最多查询" + Constants.UserConstants.BATCH_QUERY_MAX_SIZE + "个用户")
+                    .build();
+        }
+        List<User> users = userRepository.findProfilesByUserIds(userIds);
+        return Response.<List<User>>builder()
+                .code("200")
+                .info("获取用户信息成功")
+                .data(users)
+                .build();
+    }
+
     /**
      * 更新用户信息
      * @param userId 用户ID
@@ -319,8 +452,7 @@ public class UserDomainService implements IUserDomainService{
                 newUserId = Long.parseLong(updateRequest.getUserId());
                 
                 // 检查新的userId是否已被其他用户使用
-                User userWithNewId = userRepository.findByUserId(newUserId);
-                if (userWithNewId != null) {
+                if (userRepository.existsByUserId(newUserId)) {
                     return Response.<User>builder()
                             .code("400")
                             .info("用户ID已被占用")
@@ -336,8 +468,7 @@ public class UserDomainService implements IUserDomainService{
 
         // 检查邮箱是否已被其他用户使用
         if (StringUtils.hasText(updateRequest.getEmail())) {
-            User userWithEmail = userRepository.findByEmail(updateRequest.getEmail());
-            if (userWithEmail != null && !userWithEmail.getUserId().equals(userId)) {
+            if (userRepository.existsByEmail(updateRequest.getEmail(), userId)) {
                 return Response.<User>builder()
                         .code("400")
                         .info("邮箱已被其他用户使用")
@@ -370,14 +501,14 @@ public class UserDomainService implements IUserDomainService{
 
         // 如果有新的userId，需要特殊处理
         if (updateRequest.getUserId() != null && !updateRequest.getUserId().isEmpty()) {
-            // 先使用普通更新方法更新所有其他字段（此时userId还是旧的）
-            user = userRepository.update(user);
+            // 先更新其他被修改的字段（此时userId还是旧的）
+            userRepository.update(user, false);
 
             // 然后单独更新userId
-            user = userRepository.updateUserId(user.getId(), newUserId);
+            user = userRepository.updateUserId(user.getUserId(), newUserId);
         } else {
-            // 没有更新userId，使用普通更新方法
-            user = userRepository.update(user);
+            // 没有更新userId，只写入被修改的字段，内存中的实体即为最新数据
+            user = userRepository.update(user, false);
         }
 
         return Response.<User>builder()
@@ -394,21 +525,30 @@ public class UserDomainService implements IUserDomainService{
      */
     private boolean isValidPhone(String phone) {
         // 简单的手机号格式验证
-        return phone.matches("^1[3-9]\\d{9}$");
+        return PhoneValidator.isValid(phone);
     }
     
     /**
      * 通过密码匹配从同名用户中找到正确的用户
+     * 各候选的BCrypt校验并行提交到密码哈希线程池，命中后取消其余尚未开始的校验
      * @param users 同名用户列表
      * @param password 密码
      * @return 匹配的用户，如果找不到则返回null
      */
     private User findUserByPassword(List<User> users, String password) {
-        for (User user : users) {
-            if (PasswordEncoder.matches(password, user.getPassword())) {
-                return user;
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(users.size());
+        try {
+            for (User user : users) {
+                futures.add(passwordHashExecutor.matchesAsync(password, user.getPassword()));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                if (passwordHashExecutor.await(futures.get(i))) {
+                    return users.get(i);
+                }
             }
+            return null;
+        } finally {
+            futures.forEach(future -> future.cancel(false));
         }
-        return null;
     }
 }
\ No newline at end of file
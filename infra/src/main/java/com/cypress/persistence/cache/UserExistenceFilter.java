@@ -0,0 +1,256 @@
+package com.cypress.persistence.cache;
+
+import com.cypress.constants.Constants;
+import com.cypress.persistence.dao.IUserDao;
+import com.cypress.persistence.datasource.ReadWriteRouting;
+import com.cypress.persistence.po.UserPo;
+import com.cypress.utils.BloomFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户存在性过滤器
+ * 进程内用布隆过滤器记录全部userId，判断为不存在时一定不存在，按userId查询资料时可直接返回而不访问缓存或数据库；
+ * 启动后在后台按userId分批读取构建，构建完成前所有判断都视为可能存在
+ * 本节点新增的userId立即写入并通过发布订阅通知其他节点，另外定期全量重建，弥补丢失的通知和失效的旧userId
+ *
+ * 其他节点新增的userId要等收到通知后才可见，通知丢失时最长到下次重建，这段时间内会把已存在的用户判断为不存在；
+ * 因此只用于防止按userId枚举扫描的资料查询，登录和注册、修改时的唯一性检查不能使用，必须查询数据库
+ */
+@Slf4j
+@Component
+public class UserExistenceFilter implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private IUserDao userDao;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${user.existence-filter.enabled:true}")
+    private boolean enabled;
+
+    // 预计用户数，实际数量更多时下次重建按实际数量的两倍扩容
+    @Value("${user.existence-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    // 误判率，误判时照常查询
+    @Value("${user.existence-filter.fpp:0.01}")
+    private double fpp;
+
+    // 全量重建间隔
+    @Value("${user.existence-filter.rebuild-interval-ms:600000}")
+    private long rebuildIntervalMillis;
+
+    // 构建时每批读取的行数
+    @Value("${user.existence-filter.batch-size:5000}")
+    private int batchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    // 构建完成前为null
+    private volatile BloomFilter filter;
+    // 重建期间新增的userId同时写入新旧两份过滤器
+    private volatile BloomFilter rebuilding;
+    private long lastRowCount;
+
+    private RedisMessageListenerContainer listenerContainer;
+    private ScheduledExecutorService scheduler;
+
+    private Counter skipped;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        this.skipped = Metrics.counter("user.existence.filter.skipped", "kind", "userId");
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("user-existence-filter-"));
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(stringRedisTemplate.getRequiredConnectionFactory());
+        listenerContainer.addMessageListener((message, pattern) -> apply(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(Constants.RedisConstants.USER_EXISTENCE_CHANNEL));
+        listenerContainer.addMessageListener((message, pattern) -> scheduler.execute(this::rebuildQuietly),
+                new ChannelTopic(Constants.RedisConstants.USER_EXISTENCE_REBUILD_CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    /**
+     * userId是否可能存在
+     * @param userId 用户ID
+     * @return false表示一定不存在
+     */
+    public boolean mightContainUserId(Long userId) {
+        BloomFilter current = filter;
+        if (current == null || userId == null || current.mightContain(userId.toString())) {
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    /**
+     * 记录新增的userId并通知其他节点
+     * 必须在数据库写入成功之后调用
+     * @param userId 用户ID
+     */
+    public void add(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        UserPo keys = new UserPo();
+        keys.setUserId(userId);
+        put(keys);
+        try {
+            stringRedisTemplate.convertAndSend(Constants.RedisConstants.USER_EXISTENCE_CHANNEL, objectMapper.writeValueAsString(keys));
+        } catch (Exception e) {
+            // 其他节点最迟在下次重建时同步
+            log.warn("发布用户标识通知失败，userId：{}", keys.getUserId(), e);
+        }
+    }
+
+    /**
+     * 通知所有节点（包括本节点）记录一批新增的userId，用于在其他进程中绕过仓库写入用户表之后
+     * 本节点未开启过滤器时同样发布通知；通知丢失时各节点在下次重建时同步
+     * @param userIds 已写入数据库的userId
+     */
+    public void publish(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(Constants.RedisConstants.USER_EXISTENCE_CHANNEL, objectMapper.writeValueAsString(userIds));
+        } catch (Exception e) {
+            log.warn("发布用户标识通知失败，userId数：{}", userIds.size(), e);
+        }
+    }
+
+    /**
+     * 按userId分批读取全部userId，构建新的过滤器后整体替换
+     * 绕过仓库直接写入用户表后（例如批量导入）应立即调用，否则新用户在下次定时重建前会被判断为不存在
+     * 扫描在主库上执行，从库可能还没有复制延迟内新增的用户；扫描期间新增的userId同时写入新过滤器，替换后不会丢失
+     */
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        BloomFilter next = new BloomFilter(Math.max(expectedInsertions, lastRowCount * 2), fpp);
+        rebuilding = next;
+        try {
+            long rowCount = ReadWriteRouting.onPrimary(() -> scan(next));
+            filter = next;
+            lastRowCount = rowCount;
+            log.info("用户存在性过滤器构建完成，用户数：{}，占用：{}KB，耗时：{}ms",
+                    rowCount, next.sizeInBytes() / 1024, System.currentTimeMillis() - start);
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    /**
+     * 把全部userId写入过滤器
+     * @return 用户数
+     */
+    private long scan(BloomFilter target) {
+        long rowCount = 0;
+        long afterUserId = 0;
+        List<UserPo> batch;
+        do {
+            batch = userDao.selectExistenceKeys(afterUserId, batchSize);
+            for (UserPo userPo : batch) {
+                target.put(userPo.getUserId().toString());
+            }
+            rowCount += batch.size();
+            if (!batch.isEmpty()) {
+                afterUserId = batch.get(batch.size() - 1).getUserId();
+            }
+        } while (batch.size() == batchSize);
+        return rowCount;
+    }
+
+    /**
+     * 通知所有节点（包括本节点）立即重建过滤器，用于在其他进程中批量写入用户表之后
+     * 本节点未开启过滤器时同样发布通知
+     */
+    public void requestRebuild() {
+        stringRedisTemplate.convertAndSend(Constants.RedisConstants.USER_EXISTENCE_REBUILD_CHANNEL, String.valueOf(System.currentTimeMillis()));
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("构建用户存在性过滤器失败，继续使用现有过滤器", e);
+        }
+    }
+
+    private void apply(String message) {
+        try {
+            // 单个用户的通知为用户标识对象，批量通知为userId数组
+            if (message.startsWith("[")) {
+                for (Long userId : objectMapper.readValue(message, Long[].class)) {
+                    UserPo keys = new UserPo();
+                    keys.setUserId(userId);
+                    put(keys);
+                }
+                return;
+            }
+            put(objectMapper.readValue(message, UserPo.class));
+        } catch (Exception e) {
+            log.warn("无法解析用户标识通知：{}", message, e);
+        }
+    }
+
+    private void put(UserPo keys) {
+        if (keys.getUserId() == null) {
+            return;
+        }
+        String userId = keys.getUserId().toString();
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(userId);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(userId);
+        }
+    }
+}
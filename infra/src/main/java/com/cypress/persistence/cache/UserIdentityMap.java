@@ -0,0 +1,96 @@
+package com.cypress.persistence.cache;
+
+import com.cypress.persistence.po.UserPo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 请求级用户标识映射
+ * 在一次请求内按userId、手机号、邮箱记录已加载的用户，同一请求内重复查询直接复用，不再访问缓存或数据库；
+ * 只有在请求入口调用 open 之后才生效，请求结束时必须调用 close
+ * 保存的数据实体不会被修改，写操作以新的实体替换
+ */
+public final class UserIdentityMap {
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private UserIdentityMap() {}
+
+    /**
+     * 开启当前线程的请求作用域
+     */
+    public static void open() {
+        SCOPE.set(new Scope());
+    }
+
+    /**
+     * 关闭当前线程的请求作用域
+     */
+    public static void close() {
+        SCOPE.remove();
+    }
+
+    public static UserPo getByUserId(Long userId) {
+        Scope scope = SCOPE.get();
+        return scope == null ? null : scope.byUserId.get(userId);
+    }
+
+    public static UserPo getByPhone(String phone) {
+        Scope scope = SCOPE.get();
+        return scope == null ? null : scope.get(scope.phoneToUserId.get(phone));
+    }
+
+    public static UserPo getByEmail(String email) {
+        Scope scope = SCOPE.get();
+        return scope == null ? null : scope.get(scope.emailToUserId.get(email));
+    }
+
+    /**
+     * 记录或替换用户，同时更新手机号和邮箱索引
+     * @param userPo 完整的数据实体
+     */
+    public static void put(UserPo userPo) {
+        Scope scope = SCOPE.get();
+        if (scope == null || userPo == null || userPo.getUserId() == null) {
+            return;
+        }
+        scope.remove(userPo.getUserId());
+        scope.byUserId.put(userPo.getUserId(), userPo);
+        if (userPo.getPhone() != null) {
+            scope.phoneToUserId.put(userPo.getPhone(), userPo.getUserId());
+        }
+        if (userPo.getEmail() != null) {
+            scope.emailToUserId.put(userPo.getEmail(), userPo.getUserId());
+        }
+    }
+
+    /**
+     * 移除用户
+     * @param userId 用户ID
+     */
+    public static void evict(Long userId) {
+        Scope scope = SCOPE.get();
+        if (scope != null && userId != null) {
+            scope.remove(userId);
+        }
+    }
+
+    private static class Scope {
+        private final Map<Long, UserPo> byUserId = new HashMap<>();
+        private final Map<String, Long> phoneToUserId = new HashMap<>();
+        private final Map<String, Long> emailToUserId = new HashMap<>();
+
+        private UserPo get(Long userId) {
+            return userId == null ? null : byUserId.get(userId);
+        }
+
+        private void remove(Long userId) {
+            UserPo old = byUserId.remove(userId);
+            if (old != null) {
+                phoneToUserId.remove(old.getPhone(), userId);
+                emailToUserId.remove(old.getEmail(), userId);
+            }
+        }
+    }
+}
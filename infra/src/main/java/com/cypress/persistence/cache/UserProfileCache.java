@@ -0,0 +1,506 @@
+package com.cypress.persistence.cache;
+
+import com.cypress.constants.Constants;
+import com.cypress.persistence.po.UserPo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 用户资料两级缓存
+ * 一级为进程内缓存（容量和TTL受限），二级为Redis，均未命中时回源数据库
+ * 缓存的是数据实体，由仓库负责转换为领域实体，调用方拿到的都是副本
+ *
+ * 同一节点上同一用户的并发未命中合并为一次加载，其余请求等待其结果；
+ * Redis条目临近过期时按XFetch算法以一定概率提前在后台回源刷新，越接近过期、回源越慢，提前刷新的概率越高，
+ * 热点用户因此在过期前就被刷新，不会在过期瞬间同时回源数据库
+ * 回源期间如有失效操作，加载结果不会留在缓存中
+ * 缓存中不保存密码哈希，写入前清空 password，登录校验使用 findAuth* 投影查询
+ */
+@Slf4j
+@Component
+public class UserProfileCache implements InitializingBean, DisposableBean {
+
+    private static final String CACHE_NAME = "user.profile";
+
+    // 失效版本号的分段数，必须是2的幂
+    private static final int GENERATION_STRIPES = 1024;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 进程内缓存最大条目数
+    @Value("${user.cache.local.maximum-size:10000}")
+    private long localMaximumSize;
+
+    // 进程内缓存有效期，其他节点的修改最多延迟这么久可见
+    @Value("${user.cache.local.expire-seconds:30}")
+    private long localExpireSeconds;
+
+    // Redis缓存有效期
+    @Value("${user.cache.redis.expire-seconds:1800}")
+    private long redisExpireSeconds;
+
+    // XFetch提前刷新系数，越大越早刷新，小于等于0时关闭提前刷新
+    @Value("${user.cache.early-refresh.beta:1.0}")
+    private double earlyRefreshBeta;
+
+    // 后台刷新线程数
+    @Value("${user.cache.early-refresh.threads:2}")
+    private int earlyRefreshThreads;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private Cache<Long, UserPo> localCache;
+
+    // 正在加载的用户，后到的请求等待同一个结果
+    private final Map<Long, CompletableFuture<UserPo>> inFlight = new ConcurrentHashMap<>();
+    // 正在后台刷新的用户
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    // 按userId分段的失效版本号，加载前后版本号不同说明期间发生过失效
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    // 回源数据库耗时的指数移动平均（毫秒），作为XFetch的重建耗时
+    private volatile double loadMillisAverage = 5;
+    private ThreadPoolExecutor refreshExecutor;
+
+    private Counter redisHits;
+    private Counter redisMisses;
+    private Counter evictions;
+    private Counter coalesced;
+    private Counter earlyRefreshes;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(localExpireSeconds))
+                .recordStats()
+                .build();
+        // 一级缓存的命中、未命中、淘汰次数
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, localCache, CACHE_NAME + ".local");
+        // 二级缓存的命中、未命中以及主动失效次数
+        this.redisHits = Metrics.counter(CACHE_NAME + ".redis", "result", "hit");
+        this.redisMisses = Metrics.counter(CACHE_NAME + ".redis", "result", "miss");
+        this.evictions = Metrics.counter(CACHE_NAME + ".invalidations");
+        // 等待其他请求加载结果的次数，以及触发提前刷新的次数
+        this.coalesced = Metrics.counter(CACHE_NAME + ".coalesced");
+        this.earlyRefreshes = Metrics.counter(CACHE_NAME + ".early-refreshes");
+
+        this.refreshExecutor = new ThreadPoolExecutor(earlyRefreshThreads, earlyRefreshThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(256), new CustomizableThreadFactory("user-profile-refresh-"));
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * 读穿缓存获取用户，同一用户的并发未命中只加载一次
+     * @param userId 用户ID
+     * @param loader 缓存未命中时的加载方法
+     * @return 数据实体，不存在时返回null
+     */
+    public UserPo get(Long userId, Function<Long, UserPo> loader) {
+        UserPo userPo = localCache.getIfPresent(userId);
+        if (userPo != null) {
+            return userPo;
+        }
+
+        CompletableFuture<UserPo> flight = new CompletableFuture<>();
+        CompletableFuture<UserPo> existing = inFlight.putIfAbsent(userId, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        try {
+            userPo = load(userId, loader);
+            flight.complete(userPo);
+            return userPo;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(userId, flight);
+        }
+    }
+
+    private UserPo load(Long userId, Function<Long, UserPo> loader) {
+        long generation = generation(userId);
+        RedisEntry entry = readRedisWithTtl(userId);
+        if (entry.userPo != null) {
+            redisHits.increment();
+            localCache.put(userId, entry.userPo);
+            if (generation(userId) != generation) {
+                localCache.invalidate(userId);
+            } else if (shouldRefreshEarly(entry.ttlMillis)) {
+                refreshAsync(userId, loader);
+            }
+            return entry.userPo;
+        }
+        redisMisses.increment();
+
+        UserPo userPo = loadFromDatabase(userId, loader);
+        if (userPo != null) {
+            putUnlessEvicted(userPo, generation);
+        }
+        return userPo;
+    }
+
+    private UserPo await(CompletableFuture<UserPo> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * XFetch：剩余有效期小于 重建耗时 * beta * -ln(随机数) 时提前刷新
+     * 进程内缓存每隔其有效期才读一次Redis，因此剩余有效期先扣除这段时间
+     */
+    private boolean shouldRefreshEarly(long ttlMillis) {
+        if (earlyRefreshBeta <= 0 || ttlMillis < 0) {
+            return false;
+        }
+        double random = 1 - ThreadLocalRandom.current().nextDouble();
+        double gap = loadMillisAverage * earlyRefreshBeta * -Math.log(random);
+        return ttlMillis - TimeUnit.SECONDS.toMillis(localExpireSeconds) <= gap;
+    }
+
+    private void refreshAsync(Long userId, Function<Long, UserPo> loader) {
+        if (!refreshing.add(userId)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long generation = generation(userId);
+                    UserPo userPo = loadFromDatabase(userId, loader);
+                    if (userPo != null) {
+                        putUnlessEvicted(userPo, generation);
+                    }
+                } catch (Exception e) {
+                    log.warn("提前刷新用户缓存失败，userId：{}", userId, e);
+                } finally {
+                    refreshing.remove(userId);
+                }
+            });
+            earlyRefreshes.increment();
+        } catch (RejectedExecutionException e) {
+            // 刷新任务积压时放弃本次提前刷新，过期后照常回源
+            refreshing.remove(userId);
+        }
+    }
+
+    private UserPo loadFromDatabase(Long userId, Function<Long, UserPo> loader) {
+        long start = System.nanoTime();
+        UserPo userPo = loader.apply(userId);
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        loadMillisAverage = loadMillisAverage * 0.9 + millis * 0.1;
+        return userPo;
+    }
+
+    /**
+     * 写入两级缓存，加载期间发生过失效时撤销写入
+     * 先写入再检查版本号，失效操作无论发生在检查之前还是之后，过期数据都不会留在缓存中
+     */
+    private void putUnlessEvicted(UserPo userPo, long generation) {
+        put(userPo);
+        if (generation(userPo.getUserId()) != generation) {
+            localCache.invalidate(userPo.getUserId());
+            deleteRedis(userPo.getUserId());
+        }
+    }
+
+    private long generation(Long userId) {
+        return generations.get(Long.hashCode(userId) & (GENERATION_STRIPES - 1));
+    }
+
+    private void bumpGeneration(Long userId) {
+        generations.incrementAndGet(Long.hashCode(userId) & (GENERATION_STRIPES - 1));
+    }
+
+    /**
+     * 批量读穿缓存获取用户
+     * 先取进程内缓存，再对剩余的ID做一次Redis MGET，仍未命中的交给加载方法一次性查询
+     * 与 get 一样，其他请求正在加载的用户等待其结果，加载期间发生过失效的用户不会留在缓存中
+     * @param userIds 用户ID集合
+     * @param loader 批量加载方法，返回以userId为键的数据实体
+     * @return 以userId为键的数据实体，不存在的用户不包含在内
+     */
+    public Map<Long, UserPo> getAll(Collection<Long> userIds, Function<Collection<Long>, Map<Long, UserPo>> loader) {
+        Map<Long, UserPo> result = new HashMap<>(localCache.getAllPresent(userIds));
+        List<Long> missing = userIds.stream()
+                .filter(userId -> !result.containsKey(userId))
+                .distinct()
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, Long> generationsBefore = new HashMap<>(missing.size() * 2);
+        missing.forEach(userId -> generationsBefore.put(userId, generation(userId)));
+        List<Long> redisMissing = new ArrayList<>();
+        List<String> jsons = multiReadRedis(missing);
+        for (int i = 0; i < missing.size(); i++) {
+            Long userId = missing.get(i);
+            UserPo userPo = jsons == null ? null : parse(userId, jsons.get(i));
+            if (userPo != null) {
+                redisHits.increment();
+                localCache.put(userId, userPo);
+                if (generation(userId) != generationsBefore.get(userId)) {
+                    localCache.invalidate(userId);
+                }
+                result.put(userId, userPo);
+            } else {
+                redisMisses.increment();
+                redisMissing.add(userId);
+            }
+        }
+        if (redisMissing.isEmpty()) {
+            return result;
+        }
+
+        // 其他请求正在加载的用户等待其结果，其余由本次请求加载
+        Map<Long, CompletableFuture<UserPo>> waiting = new HashMap<>();
+        Map<Long, CompletableFuture<UserPo>> flights = new HashMap<>();
+        for (Long userId : redisMissing) {
+            CompletableFuture<UserPo> flight = new CompletableFuture<>();
+            CompletableFuture<UserPo> existing = inFlight.putIfAbsent(userId, flight);
+            if (existing != null) {
+                coalesced.increment();
+                waiting.put(userId, existing);
+            } else {
+                flights.put(userId, flight);
+            }
+        }
+        if (!flights.isEmpty()) {
+            try {
+                Map<Long, UserPo> loaded = loader.apply(flights.keySet());
+                putAllUnlessEvicted(loaded.values(), generationsBefore);
+                flights.forEach((userId, flight) -> flight.complete(loaded.get(userId)));
+                result.putAll(loaded);
+            } catch (RuntimeException | Error e) {
+                flights.values().forEach(flight -> flight.completeExceptionally(e));
+                throw e;
+            } finally {
+                flights.forEach(inFlight::remove);
+            }
+        }
+        waiting.forEach((userId, flight) -> {
+            UserPo userPo = await(flight);
+            if (userPo != null) {
+                result.put(userId, userPo);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 批量写入两级缓存，撤销加载期间发生过失效的用户，规则与 putUnlessEvicted 相同
+     */
+    private void putAllUnlessEvicted(Collection<UserPo> userPos, Map<Long, Long> generationsBefore) {
+        putAll(userPos);
+        for (UserPo userPo : userPos) {
+            Long generation = generationsBefore.get(userPo.getUserId());
+            if (generation == null || generation(userPo.getUserId()) != generation) {
+                localCache.invalidate(userPo.getUserId());
+                deleteRedis(userPo.getUserId());
+            }
+        }
+    }
+
+    /**
+     * 写入两级缓存
+     * @param userPo 数据实体
+     */
+    public void put(UserPo userPo) {
+        userPo.setPassword(null);
+        localCache.put(userPo.getUserId(), userPo);
+        try {
+            stringRedisTemplate.opsForValue().set(redisKey(userPo.getUserId()),
+                    objectMapper.writeValueAsString(userPo), Duration.ofSeconds(redisExpireSeconds));
+        } catch (Exception e) {
+            // Redis不可用时只保留进程内缓存，不影响主流程
+            log.warn("写入用户缓存失败，userId：{}", userPo.getUserId(), e);
+        }
+    }
+
+    /**
+     * 批量写入两级缓存，Redis写入通过管道一次提交
+     * @param userPos 数据实体集合
+     */
+    public void putAll(Collection<UserPo> userPos) {
+        if (userPos.isEmpty()) {
+            return;
+        }
+        userPos.forEach(userPo -> {
+            userPo.setPassword(null);
+            localCache.put(userPo.getUserId(), userPo);
+        });
+        try {
+            Map<String, String> values = new HashMap<>(userPos.size() * 2);
+            for (UserPo userPo : userPos) {
+                values.put(redisKey(userPo.getUserId()), objectMapper.writeValueAsString(userPo));
+            }
+            Duration ttl = Duration.ofSeconds(redisExpireSeconds);
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    values.forEach((key, value) -> ops.opsForValue().set(key, value, ttl));
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("批量写入用户缓存失败，数量：{}", userPos.size(), e);
+        }
+    }
+
+    /**
+     * 使两级缓存失效
+     * @param userId 用户ID
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evictions.increment();
+        bumpGeneration(userId);
+        localCache.invalidate(userId);
+        deleteRedis(userId);
+    }
+
+    /**
+     * 批量使两级缓存失效
+     * @param userIds 用户ID集合
+     */
+    public void evictAll(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        evictions.increment(userIds.size());
+        userIds.forEach(this::bumpGeneration);
+        localCache.invalidateAll(userIds);
+        try {
+            stringRedisTemplate.delete(userIds.stream().map(this::redisKey).collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.warn("批量删除用户缓存失败，数量：{}", userIds.size(), e);
+        }
+    }
+
+    /**
+     * 在一次管道往返中读取缓存值和剩余有效期
+     */
+    private RedisEntry readRedisWithTtl(Long userId) {
+        try {
+            String key = redisKey(userId);
+            List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    ops.opsForValue().get(key);
+                    ops.getExpire(key, TimeUnit.MILLISECONDS);
+                    return null;
+                }
+            });
+            Long ttlMillis = (Long) results.get(1);
+            return new RedisEntry(parse(userId, (String) results.get(0)), ttlMillis == null ? -1 : ttlMillis);
+        } catch (Exception e) {
+            log.warn("读取用户缓存失败，userId：{}", userId, e);
+            return new RedisEntry(null, -1);
+        }
+    }
+
+    private void deleteRedis(Long userId) {
+        try {
+            stringRedisTemplate.delete(redisKey(userId));
+        } catch (Exception e) {
+            log.warn("删除用户缓存失败，userId：{}", userId, e);
+        }
+    }
+
+    private List<String> multiReadRedis(List<Long> userIds) {
+        try {
+            return stringRedisTemplate.opsForValue()
+                    .multiGet(userIds.stream().map(this::redisKey).collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.warn("批量读取用户缓存失败，数量：{}", userIds.size(), e);
+            return null;
+        }
+    }
+
+    private UserPo parse(Long userId, String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            UserPo userPo = objectMapper.readValue(json, UserPo.class);
+            // 旧版本写入的条目可能包含密码哈希
+            userPo.setPassword(null);
+            return userPo;
+        } catch (Exception e) {
+            log.warn("解析用户缓存失败，userId：{}", userId, e);
+            return null;
+        }
+    }
+
+    private String redisKey(Long userId) {
+        return Constants.RedisConstants.USER_PROFILE_PREFIX + userId;
+    }
+
+    private static class RedisEntry {
+        private final UserPo userPo;
+        // 剩余有效期（毫秒），未知时为-1
+        private final long ttlMillis;
+
+        private RedisEntry(UserPo userPo, long ttlMillis) {
+            this.userPo = userPo;
+            this.ttlMillis = ttlMillis;
+        }
+    }
+}
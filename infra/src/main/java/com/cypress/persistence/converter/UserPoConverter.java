@@ -0,0 +1,41 @@
+package com.cypress.persistence.converter;
+
+import com.cypress.persistence.po.UserPo;
+import com.cypress.user.model.entity.User;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * 用户数据实体与领域实体的转换器
+ * 实现类在编译期生成，直接调用getter/setter，不依赖反射；
+ * 任一方新增字段而另一方未对应时编译失败，保证两边字段一致
+ */
+@Mapper(componentModel = "spring",
+        unmappedTargetPolicy = ReportingPolicy.ERROR,
+        unmappedSourcePolicy = ReportingPolicy.ERROR)
+public interface UserPoConverter {
+
+    /**
+     * 数据实体转换为领域实体
+     * @param userPo 数据实体
+     * @return 领域实体，没有待持久化的修改
+     */
+    User toDomain(UserPo userPo);
+
+    /**
+     * 领域实体转换为数据实体
+     * @param user 领域实体
+     * @return 数据实体
+     */
+    UserPo toPo(User user);
+
+    /**
+     * 转换过程中的setter调用不算作修改，刚加载的实体没有待持久化的修改
+     */
+    @AfterMapping
+    default void clearDirtyFields(@MappingTarget User user) {
+        user.clearDirtyFields();
+    }
+}
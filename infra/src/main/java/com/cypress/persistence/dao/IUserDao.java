@@ -4,17 +4,30 @@ import com.cypress.persistence.po.UserPo;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Mapper
 public interface IUserDao {
     UserPo findByPhone(String phone);
+    UserPo findAuthByPhone(String phone);
+    UserPo findAuthByEmail(String email);
+    boolean existsByPhone(String phone);
+    boolean existsByEmail(@Param("email") String email, @Param("excludeUserId") Long excludeUserId);
+    boolean existsByUserId(Long userId);
     UserPo findByUsername(String username);
     List<UserPo> findAllByUsername(String username);
+    List<UserPo> findAuthByUsername(@Param("username") String username, @Param("limit") int limit);
     UserPo selectByUserId(Long id);
+    List<UserPo> selectByUserIds(@Param("userIds") Collection<Long> userIds);
     UserPo findByEmail(String email);
-    UserPo selectById(Long id);
+    List<UserPo> selectExistenceKeys(@Param("afterUserId") long afterUserId, @Param("limit") int limit);
+    List<UserPo> selectPage(@Param("afterId") long afterId, @Param("limit") int limit);
     void insert(UserPo userPo);
-    void updateByUserId(UserPo userPo);
-    void updateUserIdById(@Param("id") Long id, @Param("newUserId") Long newUserId);
+    void batchInsert(@Param("users") List<UserPo> users);
+    void updateDirtyById(@Param("po") UserPo userPo, @Param("fields") Set<String> fields);
+    void batchUpdateLastLoginTime(@Param("users") List<UserPo> users);
+    void updateUserIdByUserId(@Param("userId") Long userId, @Param("newUserId") Long newUserId);
+    void deleteByUserId(Long userId);
 }
\ No newline at end of file
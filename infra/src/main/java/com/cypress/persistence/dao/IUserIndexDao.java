@@ -0,0 +1,30 @@
+package com.cypress.persistence.dao;
+
+import com.cypress.persistence.po.UserPo;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 用户全局索引表，分库分表时位于全局库，记录每个用户的userId、手机号、邮箱、用户名
+ * 按手机号、邮箱、用户名查询时先在这里找到userId，再到对应分片读取用户
+ */
+@Mapper
+public interface IUserIndexDao {
+    Long findUserIdByPhone(String phone);
+    List<Long> findUserIdsByEmail(String email);
+    List<Long> findUserIdsByUsername(String username);
+    boolean existsByPhone(String phone);
+    boolean existsByEmail(@Param("email") String email, @Param("excludeUserId") Long excludeUserId);
+    boolean existsByUserId(Long userId);
+    List<Long> selectIndexedUserIds(@Param("userIds") Collection<Long> userIds);
+    List<UserPo> selectExistenceKeys(@Param("afterUserId") long afterUserId, @Param("limit") int limit);
+    void insert(UserPo userPo);
+    void batchInsert(@Param("users") List<UserPo> users);
+    void updateKeys(@Param("po") UserPo userPo, @Param("fields") Set<String> fields);
+    int updateUserId(@Param("userId") Long userId, @Param("newUserId") Long newUserId);
+    void deleteByUserId(Long userId);
+}
@@ -0,0 +1,87 @@
+package com.cypress.persistence.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 读写分离数据源配置，datasource.routing.enabled=true 时生效
+ * 主库沿用 spring.datasource 配置；每个从库复制主库连接池配置，只替换连接地址和账号并设为只读
+ * 暂不支持与分库分表同时开启，开启分片时不生效
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+@ConditionalOnExpression("!${datasource.sharding.enabled:false}")
+public class ReadWriteDataSourceConfig {
+
+    // 从库连接地址，多个以逗号分隔
+    @Value("${datasource.routing.replica-urls:}")
+    private String[] replicaUrls;
+
+    @Value("${datasource.routing.replica-username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${datasource.routing.replica-password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    // 在从库上查询复制延迟（秒），为空时不检查
+    @Value("${datasource.routing.lag-query:SHOW REPLICA STATUS}")
+    private String lagQuery;
+
+    @Value("${datasource.routing.max-lag-seconds:2}")
+    private long maxLagSeconds;
+
+    @Value("${datasource.routing.lag-check-interval-ms:1000}")
+    private long lagCheckIntervalMillis;
+
+    // 写操作后同一会话的查询发往主库的时间
+    @Value("${datasource.routing.sticky-ms:3000}")
+    private long stickyMillis;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ReadWriteRoutingDataSource dataSource(HikariDataSource primaryDataSource) {
+        ReadWriteRouting.configure(stickyMillis);
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            String name = "replica-" + replicas.size();
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(url.trim());
+            config.setUsername(replicaUsername);
+            config.setPassword(replicaPassword);
+            config.setPoolName(name);
+            config.setReadOnly(true);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(Metrics.globalRegistry));
+            replicas.put(name, new HikariDataSource(config));
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, lagQuery, maxLagSeconds, lagCheckIntervalMillis);
+    }
+
+    @Bean
+    public ReadWriteRoutingInterceptor readWriteRoutingInterceptor() {
+        return new ReadWriteRoutingInterceptor();
+    }
+}
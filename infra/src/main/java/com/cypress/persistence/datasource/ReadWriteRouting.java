@@ -0,0 +1,144 @@
+package com.cypress.persistence.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 读写分离路由上下文
+ * 查询默认发往从库，以下情况发往主库：
+ * 1. 本次请求已执行过写操作（请求级粘滞）
+ * 2. 绑定的会话（例如用户ID）在粘滞时间内执行过写操作，可能跨请求读到尚未同步到从库的数据（会话级粘滞，仅本节点）
+ * 3. 在 onPrimary 中执行：回填缓存的查询、登录查询和唯一性检查，匿名请求没有会话粘滞，这些查询不能容忍复制延迟
+ * 请求作用域在请求入口 open、结束时 close，作用域之外（后台任务）只有 onPrimary 会发往主库
+ */
+public final class ReadWriteRouting {
+
+    private static final long DEFAULT_STICKY_MILLIS = 3000L;
+    private static final long MAX_SESSIONS = 100_000L;
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+    private static final ThreadLocal<Integer> PRIMARY_DEPTH = ThreadLocal.withInitial(() -> 0);
+    // 正在执行的语句是否发往从库，由MyBatis拦截器在获取连接前设置
+    private static final ThreadLocal<Boolean> READ_ROUTE = new ThreadLocal<>();
+
+    // 最近执行过写操作的会话，粘滞时间后过期
+    private static volatile Cache<Object, Boolean> recentWriters = buildRecentWriters(DEFAULT_STICKY_MILLIS);
+
+    private ReadWriteRouting() {}
+
+    /**
+     * 设置会话粘滞时间，启动时调用，应不小于允许的最大复制延迟
+     * @param stickyMillis 粘滞时间（毫秒）
+     */
+    public static void configure(long stickyMillis) {
+        recentWriters = buildRecentWriters(stickyMillis);
+    }
+
+    /**
+     * 开启当前线程的请求作用域
+     */
+    public static void open() {
+        SCOPE.set(new Scope());
+    }
+
+    /**
+     * 将当前请求绑定到会话，会话最近写过数据时本次请求的查询全部发往主库
+     * @param sessionKey 会话标识，例如用户ID
+     */
+    public static void bindSession(Object sessionKey) {
+        Scope scope = SCOPE.get();
+        if (scope == null || sessionKey == null) {
+            return;
+        }
+        scope.sessionKey = sessionKey;
+        if (recentWriters.getIfPresent(sessionKey) != null) {
+            scope.wrote = true;
+        }
+    }
+
+    /**
+     * 关闭当前线程的请求作用域，本次请求写过数据时记录到会话
+     */
+    public static void close() {
+        Scope scope = SCOPE.get();
+        SCOPE.remove();
+        if (scope != null && scope.wrote && scope.sessionKey != null) {
+            recentWriters.put(scope.sessionKey, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 在主库上执行，用于结果会被缓存、登录和唯一性检查等不能读到旧数据的查询
+     * @param action 数据访问操作
+     * @return 操作结果
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        PRIMARY_DEPTH.set(PRIMARY_DEPTH.get() + 1);
+        try {
+            return action.get();
+        } finally {
+            int depth = PRIMARY_DEPTH.get() - 1;
+            if (depth == 0) {
+                PRIMARY_DEPTH.remove();
+            } else {
+                PRIMARY_DEPTH.set(depth);
+            }
+        }
+    }
+
+    /**
+     * 当前查询是否可以发往从库
+     */
+    static boolean replicaReadAllowed() {
+        if (PRIMARY_DEPTH.get() > 0) {
+            return false;
+        }
+        Scope scope = SCOPE.get();
+        return scope == null || !scope.wrote;
+    }
+
+    /**
+     * 记录写操作，本次请求之后的查询发往主库
+     */
+    static void markWrite() {
+        Scope scope = SCOPE.get();
+        if (scope != null) {
+            scope.wrote = true;
+        }
+    }
+
+    /**
+     * 设置当前语句的路由，返回之前的路由以便恢复
+     */
+    static Boolean route(Boolean replicaRead) {
+        Boolean previous = READ_ROUTE.get();
+        if (replicaRead == null) {
+            READ_ROUTE.remove();
+        } else {
+            READ_ROUTE.set(replicaRead);
+        }
+        return previous;
+    }
+
+    /**
+     * 当前语句是否发往从库
+     */
+    static boolean isReplicaRoute() {
+        return Boolean.TRUE.equals(READ_ROUTE.get());
+    }
+
+    private static Cache<Object, Boolean> buildRecentWriters(long stickyMillis) {
+        return Caffeine.newBuilder()
+                .maximumSize(MAX_SESSIONS)
+                .expireAfterWrite(Duration.ofMillis(stickyMillis))
+                .build();
+    }
+
+    private static class Scope {
+        private boolean wrote;
+        private Object sessionKey;
+    }
+}
@@ -0,0 +1,169 @@
+package com.cypress.persistence.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离数据源
+ * 写操作和不允许读从库的查询使用主库；其余查询在复制延迟未超限的从库之间轮询，没有可用从库时退回主库
+ * 复制延迟通过定期在从库上执行 lag-query 获取，查询失败或复制中断的从库暂停使用
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final String PRIMARY = "primary";
+    private static final String[] LAG_COLUMNS = {"Seconds_Behind_Source", "Seconds_Behind_Master"};
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final long lagCheckIntervalMillis;
+    private ScheduledExecutorService scheduler;
+
+    private final Counter replicaReads = Metrics.counter("datasource.routing.reads", "target", "replica");
+    private final Counter fallbackReads = Metrics.counter("datasource.routing.reads", "target", "fallback");
+
+    /**
+     * 构造函数
+     * @param primary 主库连接池
+     * @param replicaPools 从库连接池，键为名称
+     * @param lagQuery 查询复制延迟（秒）的SQL，为空时不检查延迟
+     * @param maxLagSeconds 允许的最大复制延迟
+     * @param lagCheckIntervalMillis 延迟检查间隔
+     */
+    public ReadWriteRoutingDataSource(HikariDataSource primary, Map<String, HikariDataSource> replicaPools,
+                                      String lagQuery, long maxLagSeconds, long lagCheckIntervalMillis) {
+        this.primary = primary;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.lagCheckIntervalMillis = lagCheckIntervalMillis;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicaPools.forEach((name, pool) -> {
+            Replica replica = new Replica(name, pool, !StringUtils.hasText(lagQuery));
+            replicas.add(replica);
+            targets.put(name, pool);
+            Gauge.builder("datasource.replica.lag.seconds", replica, r -> r.lagSeconds)
+                    .tag("replica", name)
+                    .register(Metrics.globalRegistry);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (!StringUtils.hasText(lagQuery) || replicas.isEmpty()) {
+            return;
+        }
+        // 启动时先检查一次，检查通过前查询都发往主库
+        checkLag();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-lag-check-"));
+        scheduler.scheduleWithFixedDelay(this::checkLag, lagCheckIntervalMillis, lagCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!ReadWriteRouting.isReplicaRoute()) {
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(cursor.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                replicaReads.increment();
+                return replica.name;
+            }
+        }
+        fallbackReads.increment();
+        return PRIMARY;
+    }
+
+    private void checkLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                // 没有复制状态说明该库不是从库，视为没有延迟
+                Long lag = resultSet.next() ? readLag(resultSet) : Long.valueOf(0);
+                boolean available = lag != null && lag <= maxLagSeconds;
+                if (available != replica.available) {
+                    log.warn("从库{}{}，复制延迟：{}秒", replica.name, available ? "恢复使用" : "暂停使用", lag);
+                }
+                replica.lagSeconds = lag == null ? -1 : lag;
+                replica.available = available;
+            } catch (Exception e) {
+                if (replica.available) {
+                    log.warn("检查从库{}复制延迟失败，暂停使用", replica.name, e);
+                }
+                replica.lagSeconds = -1;
+                replica.available = false;
+            }
+        }
+    }
+
+    /**
+     * 读取复制延迟，复制中断时数据库返回NULL
+     */
+    private Long readLag(ResultSet resultSet) throws Exception {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            for (String column : LAG_COLUMNS) {
+                if (column.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                    return toLag(resultSet.getObject(i));
+                }
+            }
+        }
+        return toLag(resultSet.getObject(1));
+    }
+
+    private Long toLag(Object value) {
+        return value == null ? null : Long.valueOf(value.toString());
+    }
+
+    private static class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        private volatile boolean available;
+        private volatile long lagSeconds;
+
+        private Replica(String name, HikariDataSource pool, boolean available) {
+            this.name = name;
+            this.pool = pool;
+            this.available = available;
+        }
+    }
+}
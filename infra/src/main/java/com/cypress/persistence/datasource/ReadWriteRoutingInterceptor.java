@@ -0,0 +1,44 @@
+package com.cypress.persistence.datasource;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 读写分离MyBatis拦截器
+ * 在执行器获取连接之前按语句类型设置路由：SELECT在允许时发往从库，其余发往主库并记录写操作
+ * 未开启Spring事务时每次Mapper调用单独获取连接，因此路由按语句生效；开启事务后连接在事务开始时确定，始终使用主库
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class ReadWriteRoutingInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        boolean select = statement.getSqlCommandType() == SqlCommandType.SELECT;
+        Boolean previous = ReadWriteRouting.route(select && ReadWriteRouting.replicaReadAllowed());
+        try {
+            Object result = invocation.proceed();
+            if (!select) {
+                ReadWriteRouting.markWrite();
+            }
+            return result;
+        } finally {
+            ReadWriteRouting.route(previous);
+        }
+    }
+}
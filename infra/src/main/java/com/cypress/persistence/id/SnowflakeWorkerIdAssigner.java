@@ -0,0 +1,155 @@
+package com.cypress.persistence.id;
+
+import com.cypress.constants.Constants;
+import com.cypress.persistence.redis.RedisScripts;
+import com.cypress.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花算法机器ID分配
+ * 配置了 snowflake.worker-id 时直接使用；否则在Redis中抢占一个机器ID租约并定期续期，
+ * 保证多个节点同时运行时不会使用相同的机器ID
+ * 续期连续失败时，生成器在最后一次成功续期时间 + 有效期 - 安全余量之后拒绝生成ID，直到重新持有租约；
+ * 安全余量不小于生成器借用未来时间戳的上限，保证本节点生成的ID时间戳都早于租约在Redis中过期的时间
+ * 停止时不删除租约，只把剩余有效期缩短为安全余量，等借用的时间戳过去后再由其他节点占用
+ */
+@Slf4j
+@Component
+public class SnowflakeWorkerIdAssigner implements InitializingBean, DisposableBean {
+
+    private static final int MAX_WORKER_ID = 1023;
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = RedisScripts.load("lua/compare_and_expire.lua", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 固定的机器ID，小于0时通过Redis租约分配
+    @Value("${snowflake.worker-id:-1}")
+    private long configuredWorkerId;
+
+    // 租约有效期（毫秒），每三分之一有效期续期一次
+    @Value("${snowflake.lease-ttl-ms:30000}")
+    private long leaseTtlMillis;
+
+    // 租约过期前停止生成ID的提前量（毫秒），不小于生成器借用未来时间戳的上限
+    @Value("${snowflake.lease-safety-margin-ms:5000}")
+    private long safetyMarginMillis;
+
+    private final String holderToken = UUID.randomUUID().toString();
+    private volatile long workerId = -1;
+    private volatile SnowflakeIdGenerator generator;
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (configuredWorkerId >= 0) {
+            workerId = configuredWorkerId;
+            SnowflakeIdGenerator.initDefault(workerId);
+            log.info("使用配置的雪花算法机器ID：{}", workerId);
+            return;
+        }
+
+        safetyMarginMillis = Math.max(safetyMarginMillis, SnowflakeIdGenerator.getDefault().getMaxBorrowMillis());
+        if (safetyMarginMillis >= leaseTtlMillis) {
+            throw new IllegalStateException("snowflake.lease-safety-margin-ms 必须小于 snowflake.lease-ttl-ms");
+        }
+        acquireAndInit();
+        log.info("通过Redis租约获得雪花算法机器ID：{}", workerId);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("snowflake-lease-"));
+        long renewInterval = leaseTtlMillis / 3;
+        scheduler.scheduleWithFixedDelay(this::renew, renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        // 先停止生成ID，此前生成的ID时间戳不晚于当前时间加借用上限，租约在安全余量之后过期
+        generator.setValidUntil(0);
+        try {
+            stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(leaseKey(workerId)),
+                    holderToken, String.valueOf(safetyMarginMillis));
+        } catch (Exception e) {
+            // 缩短失败时等待租约按原有效期过期
+            log.warn("缩短雪花算法机器ID租约失败，workerId：{}", workerId, e);
+        }
+    }
+
+    /**
+     * 获取当前节点的机器ID
+     */
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 从随机位置开始依次尝试抢占机器ID，减少多个节点同时启动时的冲突
+     */
+    private long acquire() {
+        int start = ThreadLocalRandom.current().nextInt(MAX_WORKER_ID + 1);
+        for (int i = 0; i <= MAX_WORKER_ID; i++) {
+            long candidate = (start + i) % (MAX_WORKER_ID + 1);
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(leaseKey(candidate), holderToken, Duration.ofMillis(leaseTtlMillis));
+            if (Boolean.TRUE.equals(acquired)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("没有可用的雪花算法机器ID");
+    }
+
+    /**
+     * 抢占机器ID并替换默认生成器，有效截止时间从发起请求前开始计算
+     */
+    private void acquireAndInit() {
+        long start = System.currentTimeMillis();
+        workerId = acquire();
+        SnowflakeIdGenerator.initDefault(workerId);
+        generator = SnowflakeIdGenerator.getDefault();
+        generator.setValidUntil(start + leaseTtlMillis - safetyMarginMillis);
+    }
+
+    private void renew() {
+        // 以发起续期前的时间计算截止时间，不会晚于Redis中租约的实际过期时间
+        long start = System.currentTimeMillis();
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(leaseKey(workerId)),
+                    holderToken, String.valueOf(leaseTtlMillis));
+            if (renewed != null && renewed != 0L) {
+                generator.setValidUntil(start + leaseTtlMillis - safetyMarginMillis);
+                return;
+            }
+            // 租约已过期并可能被其他节点占用，立即停止使用旧机器ID，再换一个新的机器ID
+            generator.setValidUntil(0);
+            long lostWorkerId = workerId;
+            acquireAndInit();
+            log.error("雪花算法机器ID租约丢失，workerId：{}，已重新分配：{}", lostWorkerId, workerId);
+        } catch (Exception e) {
+            log.warn("续期雪花算法机器ID租约失败，workerId：{}，租约到期前仍未续期成功时将停止生成ID", workerId, e);
+        }
+    }
+
+    private String leaseKey(long id) {
+        return Constants.RedisConstants.SNOWFLAKE_WORKER_PREFIX + id;
+    }
+}
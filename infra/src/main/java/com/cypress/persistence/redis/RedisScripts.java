@@ -0,0 +1,28 @@
+package com.cypress.persistence.redis;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+/**
+ * Redis Lua脚本加载工具
+ * 脚本放在 classpath:lua/ 下，执行时由Spring先尝试EVALSHA，未缓存时再EVAL
+ */
+public class RedisScripts {
+
+    /**
+     * 从classpath加载Lua脚本
+     * @param path 脚本路径
+     * @param resultType 返回值类型
+     * @return Redis脚本
+     */
+    public static <T> DefaultRedisScript<T> load(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(resultType);
+        return script;
+    }
+
+    // 私有构造方法：禁止实例化工具类
+    private RedisScripts() {}
+}
@@ -0,0 +1,256 @@
+package com.cypress.persistence.repository;
+
+import com.cypress.constants.Constants;
+import com.cypress.user.repository.ITokenRevocationRepository;
+import com.cypress.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌吊销仓库
+ * Redis中保存每个用户的吊销水位和已吊销的令牌ID，有效期与令牌有效期一致；
+ * 每个节点在本地维护一份副本：用户水位放在Map中，令牌ID放在布隆过滤器中，
+ * 吊销时通过发布订阅通知所有节点，另外定期扫描Redis重建副本，弥补丢失的通知并淘汰已过期的记录
+ * 校验时只查询本地副本，只有布隆过滤器判断可能已吊销时才访问Redis确认
+ */
+@Slf4j
+@Repository
+public class TokenRevocationRepository implements ITokenRevocationRepository, InitializingBean, DisposableBean {
+
+    private static final String USER_MESSAGE_PREFIX = "user:";
+    private static final String JTI_MESSAGE_PREFIX = "jti:";
+    private static final int SCAN_BATCH_SIZE = 500;
+    // 小于该值的水位是旧版本写入的秒级水位
+    private static final long SECONDS_WATERMARK_LIMIT = 100_000_000_000L;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 令牌有效期，吊销记录保留同样长的时间
+    @Value("${jwt.expiration}")
+    private long tokenExpirationMillis;
+
+    // 令牌有效期内预计吊销的令牌数，用于计算布隆过滤器大小
+    @Value("${jwt.revocation.expected-revocations:100000}")
+    private long expectedRevocations;
+
+    // 布隆过滤器误判率，误判时需要访问一次Redis确认
+    @Value("${jwt.revocation.fpp:0.001}")
+    private double fpp;
+
+    // 全量重建本地副本的间隔
+    @Value("${jwt.revocation.resync-interval-ms:300000}")
+    private long resyncIntervalMillis;
+
+    // 用户ID -> 吊销水位（毫秒）
+    private volatile Map<Long, Long> watermarks = new ConcurrentHashMap<>();
+    private volatile BloomFilter revokedJtis;
+
+    // 重建期间收到的通知同时写入新旧两份副本
+    private volatile Map<Long, Long> rebuildingWatermarks;
+    private volatile BloomFilter rebuildingJtis;
+
+    private RedisMessageListenerContainer listenerContainer;
+    private ScheduledExecutorService scheduler;
+
+    private Counter bloomConfirmed;
+    private Counter bloomFalsePositives;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.revokedJtis = new BloomFilter(expectedRevocations, fpp);
+        this.bloomConfirmed = Metrics.counter("token.revocation.bloom", "result", "revoked");
+        this.bloomFalsePositives = Metrics.counter("token.revocation.bloom", "result", "false_positive");
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(stringRedisTemplate.getRequiredConnectionFactory());
+        listenerContainer.addMessageListener((message, pattern) -> apply(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(Constants.RedisConstants.TOKEN_REVOCATION_CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("token-revocation-"));
+        scheduler.scheduleWithFixedDelay(this::resyncQuietly, 0, resyncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        scheduler.shutdownNow();
+        listenerContainer.destroy();
+    }
+
+    @Override
+    public void revoke(String jti, Date expiration) {
+        long ttl = expiration.getTime() - System.currentTimeMillis();
+        if (ttl <= 0) {
+            return;
+        }
+        stringRedisTemplate.opsForValue().set(Constants.RedisConstants.TOKEN_REVOKED_JTI_PREFIX + jti, "1", Duration.ofMillis(ttl));
+        applyJti(jti);
+        publish(JTI_MESSAGE_PREFIX + jti);
+    }
+
+    @Override
+    public void revokeAllIssuedBefore(Long userId, Date revokedAt) {
+        // 水位精确到毫秒，吊销后立即重新登录签发的令牌不受影响
+        long watermark = revokedAt.getTime();
+        stringRedisTemplate.opsForValue().set(Constants.RedisConstants.TOKEN_REVOKED_USER_PREFIX + userId,
+                String.valueOf(watermark), Duration.ofMillis(tokenExpirationMillis));
+        applyWatermark(userId, watermark);
+        publish(USER_MESSAGE_PREFIX + userId + ":" + watermark);
+    }
+
+    @Override
+    public boolean isRevoked(Long userId, String jti, Date issuedAt) {
+        if (userId != null && issuedAt != null) {
+            Long watermark = watermarks.get(userId);
+            if (watermark != null && issuedAt.getTime() < watermark) {
+                return true;
+            }
+        }
+        if (jti == null || !revokedJtis.mightContain(jti)) {
+            return false;
+        }
+        try {
+            boolean revoked = Boolean.TRUE.equals(stringRedisTemplate.hasKey(Constants.RedisConstants.TOKEN_REVOKED_JTI_PREFIX + jti));
+            (revoked ? bloomConfirmed : bloomFalsePositives).increment();
+            return revoked;
+        } catch (Exception e) {
+            // 无法确认时按已吊销处理
+            log.warn("确认令牌吊销状态失败，jti：{}", jti, e);
+            return true;
+        }
+    }
+
+    private void publish(String message) {
+        try {
+            stringRedisTemplate.convertAndSend(Constants.RedisConstants.TOKEN_REVOCATION_CHANNEL, message);
+        } catch (Exception e) {
+            // 吊销记录已写入Redis，其他节点最迟在下次重建时同步
+            log.warn("发布令牌吊销通知失败：{}", message, e);
+        }
+    }
+
+    private void apply(String message) {
+        try {
+            if (message.startsWith(JTI_MESSAGE_PREFIX)) {
+                applyJti(message.substring(JTI_MESSAGE_PREFIX.length()));
+            } else if (message.startsWith(USER_MESSAGE_PREFIX)) {
+                String[] parts = message.substring(USER_MESSAGE_PREFIX.length()).split(":");
+                applyWatermark(Long.parseLong(parts[0]), toMillis(Long.parseLong(parts[1])));
+            }
+        } catch (Exception e) {
+            log.warn("无法解析令牌吊销通知：{}", message, e);
+        }
+    }
+
+    private void applyJti(String jti) {
+        BloomFilter rebuilding = rebuildingJtis;
+        if (rebuilding != null) {
+            rebuilding.put(jti);
+        }
+        revokedJtis.put(jti);
+    }
+
+    private void applyWatermark(Long userId, long watermark) {
+        Map<Long, Long> rebuilding = rebuildingWatermarks;
+        if (rebuilding != null) {
+            rebuilding.merge(userId, watermark, Math::max);
+        }
+        watermarks.merge(userId, watermark, Math::max);
+    }
+
+    /**
+     * 扫描Redis重建本地副本，已过期的吊销记录随之淘汰
+     */
+    synchronized void resync() {
+        BloomFilter jtis = new BloomFilter(expectedRevocations, fpp);
+        Map<Long, Long> userWatermarks = new ConcurrentHashMap<>();
+        rebuildingJtis = jtis;
+        rebuildingWatermarks = userWatermarks;
+        try {
+            int jtiCount = 0;
+            try (Cursor<String> cursor = scan(Constants.RedisConstants.TOKEN_REVOKED_JTI_PREFIX)) {
+                while (cursor.hasNext()) {
+                    jtis.put(cursor.next().substring(Constants.RedisConstants.TOKEN_REVOKED_JTI_PREFIX.length()));
+                    jtiCount++;
+                }
+            }
+
+            List<String> keys = new ArrayList<>(SCAN_BATCH_SIZE);
+            try (Cursor<String> cursor = scan(Constants.RedisConstants.TOKEN_REVOKED_USER_PREFIX)) {
+                while (cursor.hasNext()) {
+                    keys.add(cursor.next());
+                    if (keys.size() >= SCAN_BATCH_SIZE) {
+                        loadWatermarks(keys, userWatermarks);
+                        keys.clear();
+                    }
+                }
+            }
+            loadWatermarks(keys, userWatermarks);
+
+            revokedJtis = jtis;
+            watermarks = userWatermarks;
+            log.debug("重建令牌吊销副本完成，令牌数：{}，用户数：{}", jtiCount, userWatermarks.size());
+        } finally {
+            rebuildingJtis = null;
+            rebuildingWatermarks = null;
+        }
+    }
+
+    private Cursor<String> scan(String prefix) {
+        return stringRedisTemplate.scan(ScanOptions.scanOptions().match(prefix + "*").count(SCAN_BATCH_SIZE).build());
+    }
+
+    private void loadWatermarks(List<String> keys, Map<Long, Long> target) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            String value = values == null ? null : values.get(i);
+            if (value != null) {
+                Long userId = Long.parseLong(keys.get(i).substring(Constants.RedisConstants.TOKEN_REVOKED_USER_PREFIX.length()));
+                target.merge(userId, toMillis(Long.parseLong(value)), Math::max);
+            }
+        }
+    }
+
+    /**
+     * 旧版本的水位为秒，签发时间不晚于该秒的令牌失效，换算为下一秒开始的毫秒水位
+     */
+    private static long toMillis(long watermark) {
+        return watermark < SECONDS_WATERMARK_LIMIT ? (watermark + 1) * 1000 : watermark;
+    }
+
+    private void resyncQuietly() {
+        try {
+            resync();
+        } catch (Exception e) {
+            log.warn("重建令牌吊销副本失败，继续使用现有副本", e);
+        }
+    }
+}
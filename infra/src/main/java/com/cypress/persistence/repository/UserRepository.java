@@ -2,32 +2,105 @@ package com.cypress.persistence.repository;
 
 import com.cypress.constants.Constants;
 import com.cypress.enums.VerificationResult;
+import com.cypress.persistence.cache.UserExistenceFilter;
+import com.cypress.persistence.cache.UserIdentityMap;
+import com.cypress.persistence.cache.UserProfileCache;
+import com.cypress.persistence.converter.UserPoConverter;
 import com.cypress.persistence.dao.IUserDao;
+import com.cypress.persistence.datasource.ReadWriteRouting;
 import com.cypress.persistence.po.UserPo;
-import org.springframework.beans.BeanUtils;
+import com.cypress.persistence.redis.RedisScripts;
+import com.cypress.persistence.writer.LastLoginTimeWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Repository;
 import com.cypress.user.model.entity.User;
 import com.cypress.user.repository.IUserRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Repository
 public class UserRepository implements IUserRepository {
+    // 单条IN查询最多包含的ID数
+    private static final int SELECT_IN_CHUNK_SIZE = 500;
+
+    private static final DefaultRedisScript<Long> SAVE_CODE_SCRIPT = RedisScripts.load("lua/save_code.lua", Long.class);
+    private static final DefaultRedisScript<Long> VERIFY_CODE_SCRIPT = RedisScripts.load("lua/verify_code.lua", Long.class);
+
     @Autowired
     private IUserDao userDao;
 
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private UserExistenceFilter userExistenceFilter;
+
+    @Autowired
+    private LastLoginTimeWriter lastLoginTimeWriter;
+
+    @Autowired
+    private UserPoConverter userPoConverter;
+
     @Override
     public User findByPhone(String phone) {
-        UserPo userPo = userDao.findByPhone(phone);
+        UserPo userPo = UserIdentityMap.getByPhone(phone);
+        if (userPo == null) {
+            // 验证码登录，刚注册的用户可能尚未同步到从库
+            userPo = ReadWriteRouting.onPrimary(() -> userDao.findByPhone(phone));
+            UserIdentityMap.put(userPo);
+        }
         return convertToDomain(userPo);
     }
 
+    @Override
+    public User findAuthByPhone(String phone) {
+        // 本次请求已从数据库加载过完整用户时直接复用，来自资料缓存的实体不含密码哈希
+        UserPo userPo = UserIdentityMap.getByPhone(phone);
+        if (userPo == null || userPo.getPassword() == null) {
+            userPo = ReadWriteRouting.onPrimary(() -> userDao.findAuthByPhone(phone));
+        }
+        return convertToDomain(userPo);
+    }
+
+    @Override
+    public User findAuthByEmail(String email) {
+        UserPo userPo = UserIdentityMap.getByEmail(email);
+        if (userPo == null || userPo.getPassword() == null) {
+            userPo = ReadWriteRouting.onPrimary(() -> userDao.findAuthByEmail(email));
+        }
+        return convertToDomain(userPo);
+    }
+
+    @Override
+    public boolean existsByPhone(String phone) {
+        // 唯一性检查在主库上执行，从库可能还没有刚写入的手机号
+        return ReadWriteRouting.onPrimary(() -> userDao.existsByPhone(phone));
+    }
+
+    @Override
+    public boolean existsByEmail(String email, Long excludeUserId) {
+        return ReadWriteRouting.onPrimary(() -> userDao.existsByEmail(email, excludeUserId));
+    }
+
+    @Override
+    public boolean existsByUserId(Long userId) {
+        // 唯一性检查不能使用存在性过滤器，其他节点新增的userId可能尚未同步到本节点
+        return ReadWriteRouting.onPrimary(() -> userDao.existsByUserId(userId));
+    }
+
     @Override
     public User findByUsername(String username) {
         UserPo userPo = userDao.findByUsername(username);
@@ -42,6 +115,14 @@ public class UserRepository implements IUserRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<User> findAuthCandidatesByUsername(String username, int limit) {
+        List<UserPo> userPos = ReadWriteRouting.onPrimary(() -> userDao.findAuthByUsername(username, limit));
+        return userPos.stream()
+                .map(this::convertToDomain)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public User save(User user) {
         if (user == null) {
@@ -49,66 +130,153 @@ public class UserRepository implements IUserRepository {
         }
         UserPo userPo = convertToPo(user);
         userDao.insert(userPo);
+        userExistenceFilter.add(userPo.getUserId());
+        userProfileCache.evict(user.getUserId());
+        // 新插入的实体没有数据库主键，不放入请求级映射
+        UserIdentityMap.evict(user.getUserId());
         return user;
     }
 
     @Override
     public User findByUserId(Long userId) {
-        UserPo userPo = userDao.selectByUserId(userId);
+        UserPo userPo = UserIdentityMap.getByUserId(userId);
+        if (userPo == null) {
+            userPo = userProfileCache.get(userId, id -> ReadWriteRouting.onPrimary(() -> userDao.selectByUserId(id)));
+            UserIdentityMap.put(userPo);
+        }
         return convertToDomain(userPo);
     }
 
+    @Override
+    public User findProfileByUserId(Long userId) {
+        // 一定不存在的ID（例如枚举扫描）不访问缓存和数据库
+        if (!userExistenceFilter.mightContainUserId(userId)) {
+            return null;
+        }
+        return findByUserId(userId);
+    }
+
+    @Override
+    public List<User> findProfilesByUserIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> candidates = userIds.stream()
+                .filter(userExistenceFilter::mightContainUserId)
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, UserPo> userPos = userProfileCache.getAll(candidates, ids -> ReadWriteRouting.onPrimary(() -> selectByUserIdsInChunks(ids)));
+        return candidates.stream()
+                .distinct()
+                .map(userPos::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToDomain)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public User update(User user) {
-        UserPo userPo = convertToPo(user);
-        userDao.updateByUserId(userPo);
+        return update(user, true);
+    }
+
+    @Override
+    public User update(User user, boolean reload) {
+        // 只写入被修改过的字段，没有修改时不访问数据库
+        if (user.hasDirtyFields()) {
+            UserPo userPo = convertToPo(user);
+            userDao.updateDirtyById(userPo, user.dirtyFields());
+            user.clearDirtyFields();
+            userProfileCache.evict(user.getUserId());
+            // 请求内后续的查询直接使用更新后的数据
+            UserIdentityMap.put(userPo);
+        }
+        if (!reload) {
+            return user;
+        }
         // 更新后通过userId查询用户，确保获取最新数据
         return findByUserId(user.getUserId());
     }
     
     @Override
-    public User updateUserId(Long id, Long newUserId) {
-        userDao.updateUserIdById(id, newUserId);
+    public User updateUserId(Long userId, Long newUserId) {
+        userDao.updateUserIdByUserId(userId, newUserId);
+        userExistenceFilter.add(newUserId);
+        // 旧userId对应的缓存也要失效
+        userProfileCache.evict(userId);
+        UserIdentityMap.evict(userId);
+        userProfileCache.evict(newUserId);
+        UserIdentityMap.evict(newUserId);
         // 更新后通过新的userId查询用户，确保获取最新数据
         return findByUserId(newUserId);
     }
     
     @Override
-    public User findById(Long id) {
-        UserPo userPo = userDao.selectById(id);
-        return convertToDomain(userPo);
+    public void recordLastLogin(Long userId, LocalDateTime lastLoginTime) {
+        lastLoginTimeWriter.record(userId, lastLoginTime);
     }
 
     @Override
     public void saveCode(String phone, String code) {
-        String redisKey = Constants.UserConstants.USER + phone + Constants.RedisConstants.VERIFICATION_CODE_PREFIX;
         long expire = Constants.RedisConstants.VERIFICATION_CODE_EXPIRE;
-        stringRedisTemplate.opsForValue().set(redisKey, code, expire, TimeUnit.MILLISECONDS
-        );
-
+        // 保存新验证码的同时重置尝试次数
+        stringRedisTemplate.execute(SAVE_CODE_SCRIPT, verificationKeys(phone), code, String.valueOf(expire));
     }
 
     @Override
     public VerificationResult validCode(String phone, String code) {
-        String redisKey = Constants.UserConstants.USER + phone + Constants.RedisConstants.VERIFICATION_CODE_PREFIX;
-        String redisCode = stringRedisTemplate.opsForValue().get(redisKey);
-        if (redisCode == null) {
+        // 比较、消费验证码和累计尝试次数在一次EVAL中原子完成
+        Long result = stringRedisTemplate.execute(VERIFY_CODE_SCRIPT, verificationKeys(phone), code,
+                String.valueOf(Constants.RedisConstants.VERIFICATION_MAX_ATTEMPTS),
+                String.valueOf(Constants.RedisConstants.VERIFICATION_CODE_EXPIRE));
+        if (result == null || result == 0L) {
             return VerificationResult.EXPIRED;  // 验证码过期
-        }
-
-        if (redisCode.equals(code)) {
-            return VerificationResult.SUCCESS;  // 验证成功
+        } else if (result == 1L) {
+            return VerificationResult.SUCCESS;  // 验证成功，验证码已被消费
+        } else if (result == 3L) {
+            return VerificationResult.TOO_MANY_ATTEMPTS;  // 错误次数过多
         } else {
             return VerificationResult.INVALID;  // 验证码错误
         }
     }
 
+    /**
+     * 验证码键和尝试次数键，手机号作为哈希标签，Redis集群下两个键落在同一槽位，脚本才能同时访问
+     */
+    private List<String> verificationKeys(String phone) {
+        return Arrays.asList(
+                Constants.UserConstants.USER + "{" + phone + "}" + Constants.RedisConstants.VERIFICATION_CODE_PREFIX,
+                Constants.UserConstants.USER + "{" + phone + "}" + Constants.RedisConstants.VERIFICATION_ATTEMPT_PREFIX);
+    }
+
     @Override
     public User findByEmail(String email) {
-        UserPo userPo = userDao.findByEmail(email);
+        UserPo userPo = UserIdentityMap.getByEmail(email);
+        if (userPo == null) {
+            userPo = userDao.findByEmail(email);
+            UserIdentityMap.put(userPo);
+        }
         return convertToDomain(userPo);
     }
 
+    /**
+     * 分批使用IN查询用户，避免单条SQL过长
+     * @param userIds 用户ID集合
+     * @return 以userId为键的数据实体
+     */
+    private Map<Long, UserPo> selectByUserIdsInChunks(Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(userIds);
+        Map<Long, UserPo> result = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += SELECT_IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + SELECT_IN_CHUNK_SIZE, ids.size()));
+            for (UserPo userPo : userDao.selectByUserIds(chunk)) {
+                result.put(userPo.getUserId(), userPo);
+            }
+        }
+        return result;
+    }
+
     /**
      * 将数据实体转换为领域实体
      * @param userPo 数据实体
@@ -118,9 +286,7 @@ public class UserRepository implements IUserRepository {
         if (userPo == null) {
             return null;
         }
-        User user = new User();
-        BeanUtils.copyProperties(userPo, user);
-        return user;
+        return userPoConverter.toDomain(userPo);
     }
 
     /**
@@ -132,8 +298,6 @@ public class UserRepository implements IUserRepository {
         if (user == null) {
             return null;
         }
-        UserPo userPo = new UserPo();
-        BeanUtils.copyProperties(user, userPo);
-        return userPo;
+        return userPoConverter.toPo(user);
     }
 }
\ No newline at end of file
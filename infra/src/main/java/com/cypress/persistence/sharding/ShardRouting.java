@@ -0,0 +1,41 @@
+package com.cypress.persistence.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * 分片路由上下文
+ * 在 on 中执行的数据访问发往指定分片，其余发往全局库
+ */
+public final class ShardRouting {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardRouting() {}
+
+    /**
+     * 在指定分片上执行
+     * @param shard 分片序号
+     * @param action 数据访问操作
+     * @return 操作结果
+     */
+    public static <T> T on(int shard, Supplier<T> action) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 当前分片序号，不在分片上执行时为null
+     */
+    static Integer current() {
+        return SHARD.get();
+    }
+}
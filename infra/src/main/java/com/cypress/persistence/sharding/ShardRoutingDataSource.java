@@ -0,0 +1,49 @@
+package com.cypress.persistence.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分片数据源
+ * 在 ShardRouting.on 中获取的连接来自对应分片，其余来自全局库（全局索引表、迁移前的单表）
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private final List<HikariDataSource> shards;
+
+    /**
+     * 构造函数
+     * @param global 全局库连接池
+     * @param shards 分片连接池，下标即分片序号
+     */
+    public ShardRoutingDataSource(HikariDataSource global, List<HikariDataSource> shards) {
+        this.shards = shards;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(global);
+        // 分片序号超出范围时报错，不能退回全局库
+        setLenientFallback(false);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardRouting.current();
+    }
+
+    @Override
+    public void destroy() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,293 @@
+package com.cypress.persistence.sharding;
+
+import com.cypress.persistence.dao.IUserDao;
+import com.cypress.persistence.dao.IUserIndexDao;
+import com.cypress.persistence.po.UserPo;
+import lombok.extern.slf4j.Slf4j;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 分库分表的用户DAO，datasource.sharding.enabled=true 时替代单表DAO
+ * 用户表按userId分布在各分片上，SQL与单表相同；全局库中的 user_index 表记录每个用户的手机号、邮箱、用户名，
+ * 按这些字段查询时先查索引得到userId，只访问相关分片，不需要查询全部分片
+ * 写入时先写全局索引（手机号唯一约束在这里生效），再写分片，分片写入失败时撤销索引的修改
+ *
+ * 修改userId会改变分片键，新旧userId不在同一分片时按以下顺序迁移：
+ * 1. 删除之前中断的迁移在目标分片留下的、索引中不存在的副本
+ * 2. 把用户复制到目标分片
+ * 3. 全局索引改为新userId，迁移从这一步起生效，失败时删除副本
+ * 4. 删除源分片上的旧数据，失败时只记录错误日志，旧数据只能通过旧userId访问，需要按日志手工删除
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(prefix = "datasource.sharding", name = "enabled", havingValue = "true")
+public class ShardedUserDao implements IUserDao, InitializingBean {
+
+    private static final String USER_ID_FIELD = "userId";
+    private static final Set<String> INDEXED_FIELDS = Set.of("phone", "email", "username");
+
+    // 与单表SQL的 ORDER BY status DESC, last_login_time DESC 一致，NULL排在最后
+    private static final Comparator<UserPo> AUTH_CANDIDATE_ORDER = Comparator
+            .comparing(UserPo::getStatus, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()).reversed())
+            .thenComparing(UserPo::getLastLoginTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()).reversed());
+
+    @Autowired
+    private SqlSessionTemplate sqlSessionTemplate;
+
+    @Autowired
+    private IUserIndexDao userIndexDao;
+
+    @Autowired
+    private UserShardStrategy shardStrategy;
+
+    // MyBatis生成的单表DAO，在 ShardRouting.on 中执行时访问对应分片
+    private IUserDao shardDao;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.shardDao = sqlSessionTemplate.getMapper(IUserDao.class);
+    }
+
+    @Override
+    public UserPo findByPhone(String phone) {
+        Long userId = userIndexDao.findUserIdByPhone(phone);
+        return userId == null ? null : query(userId, () -> shardDao.findByPhone(phone));
+    }
+
+    @Override
+    public UserPo findAuthByPhone(String phone) {
+        Long userId = userIndexDao.findUserIdByPhone(phone);
+        return userId == null ? null : query(userId, () -> shardDao.findAuthByPhone(phone));
+    }
+
+    @Override
+    public UserPo findAuthByEmail(String email) {
+        return firstOnShards(userIndexDao.findUserIdsByEmail(email), () -> shardDao.findAuthByEmail(email));
+    }
+
+    @Override
+    public boolean existsByPhone(String phone) {
+        return userIndexDao.existsByPhone(phone);
+    }
+
+    @Override
+    public boolean existsByEmail(String email, Long excludeUserId) {
+        return userIndexDao.existsByEmail(email, excludeUserId);
+    }
+
+    @Override
+    public boolean existsByUserId(Long userId) {
+        return userIndexDao.existsByUserId(userId);
+    }
+
+    @Override
+    public UserPo findByUsername(String username) {
+        return firstOnShards(userIndexDao.findUserIdsByUsername(username), () -> shardDao.findByUsername(username));
+    }
+
+    @Override
+    public List<UserPo> findAllByUsername(String username) {
+        List<UserPo> result = new ArrayList<>();
+        for (Integer shard : shardStrategy.groupByShard(userIndexDao.findUserIdsByUsername(username)).keySet()) {
+            result.addAll(ShardRouting.on(shard, () -> shardDao.findAllByUsername(username)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<UserPo> findAuthByUsername(String username, int limit) {
+        List<UserPo> result = new ArrayList<>();
+        for (Integer shard : shardStrategy.groupByShard(userIndexDao.findUserIdsByUsername(username)).keySet()) {
+            result.addAll(ShardRouting.on(shard, () -> shardDao.findAuthByUsername(username, limit)));
+        }
+        result.sort(AUTH_CANDIDATE_ORDER);
+        return limit > 0 && result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    @Override
+    public UserPo selectByUserId(Long id) {
+        return query(id, () -> shardDao.selectByUserId(id));
+    }
+
+    @Override
+    public List<UserPo> selectByUserIds(Collection<Long> userIds) {
+        List<UserPo> result = new ArrayList<>(userIds.size());
+        shardStrategy.groupByShard(userIds).forEach((shard, ids) ->
+                result.addAll(ShardRouting.on(shard, () -> shardDao.selectByUserIds(ids))));
+        return result;
+    }
+
+    @Override
+    public UserPo findByEmail(String email) {
+        return firstOnShards(userIndexDao.findUserIdsByEmail(email), () -> shardDao.findByEmail(email));
+    }
+
+    @Override
+    public List<UserPo> selectExistenceKeys(long afterUserId, int limit) {
+        return userIndexDao.selectExistenceKeys(afterUserId, limit);
+    }
+
+    /**
+     * 读取全局库中迁移前的单表，用于 UserShardMigrator
+     */
+    @Override
+    public List<UserPo> selectPage(long afterId, int limit) {
+        return shardDao.selectPage(afterId, limit);
+    }
+
+    @Override
+    public void insert(UserPo userPo) {
+        userIndexDao.insert(userPo);
+        try {
+            execute(userPo.getUserId(), () -> shardDao.insert(userPo));
+        } catch (RuntimeException e) {
+            userIndexDao.deleteByUserId(userPo.getUserId());
+            throw e;
+        }
+    }
+
+    @Override
+    public void batchInsert(List<UserPo> users) {
+        groupUsersByShard(users).forEach((shard, group) -> {
+            userIndexDao.batchInsert(group);
+            try {
+                ShardRouting.on(shard, () -> {
+                    shardDao.batchInsert(group);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                group.forEach(userPo -> userIndexDao.deleteByUserId(userPo.getUserId()));
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public void updateDirtyById(UserPo userPo, Set<String> fields) {
+        if (fields.contains(USER_ID_FIELD)) {
+            throw new IllegalArgumentException("userId是分片键，需通过 updateUserIdByUserId 修改");
+        }
+        Long userId = userPo.getUserId();
+        if (Collections.disjoint(fields, INDEXED_FIELDS)) {
+            execute(userId, () -> shardDao.updateDirtyById(userPo, fields));
+            return;
+        }
+        // 记录修改前的索引字段，分片写入失败时恢复
+        UserPo previous = query(userId, () -> shardDao.selectByUserId(userId));
+        userIndexDao.updateKeys(userPo, fields);
+        try {
+            execute(userId, () -> shardDao.updateDirtyById(userPo, fields));
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                userIndexDao.updateKeys(previous, fields);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void batchUpdateLastLoginTime(List<UserPo> users) {
+        groupUsersByShard(users).forEach((shard, group) -> ShardRouting.on(shard, () -> {
+            shardDao.batchUpdateLastLoginTime(group);
+            return null;
+        }));
+    }
+
+    @Override
+    public void updateUserIdByUserId(Long userId, Long newUserId) {
+        int source = shardStrategy.shardOf(userId);
+        int target = shardStrategy.shardOf(newUserId);
+        if (source == target) {
+            execute(userId, () -> shardDao.updateUserIdByUserId(userId, newUserId));
+            try {
+                userIndexDao.updateUserId(userId, newUserId);
+            } catch (RuntimeException e) {
+                execute(newUserId, () -> shardDao.updateUserIdByUserId(newUserId, userId));
+                throw e;
+            }
+            return;
+        }
+        migrate(userId, newUserId, source, target);
+    }
+
+    @Override
+    public void deleteByUserId(Long userId) {
+        userIndexDao.deleteByUserId(userId);
+        execute(userId, () -> shardDao.deleteByUserId(userId));
+    }
+
+    /**
+     * 把用户迁移到新userId所在的分片，步骤见类注释
+     */
+    private void migrate(Long userId, Long newUserId, int source, int target) {
+        UserPo userPo = ShardRouting.on(source, () -> shardDao.selectByUserId(userId));
+        if (userPo == null) {
+            return;
+        }
+        if (!userIndexDao.existsByUserId(newUserId)) {
+            execute(newUserId, () -> shardDao.deleteByUserId(newUserId));
+        }
+        userPo.setUserId(newUserId);
+        execute(newUserId, () -> shardDao.insert(userPo));
+        try {
+            userIndexDao.updateUserId(userId, newUserId);
+        } catch (RuntimeException e) {
+            execute(newUserId, () -> shardDao.deleteByUserId(newUserId));
+            throw e;
+        }
+        try {
+            execute(userId, () -> shardDao.deleteByUserId(userId));
+        } catch (RuntimeException e) {
+            log.error("用户已从分片{}迁移到分片{}，删除旧数据失败，需手工删除，userId：{}，新userId：{}",
+                    source, target, userId, newUserId, e);
+        }
+        log.info("用户userId变更，已从分片{}迁移到分片{}，userId：{}，新userId：{}", source, target, userId, newUserId);
+    }
+
+    /**
+     * 依次查询候选userId所在的分片，返回第一个结果
+     */
+    private UserPo firstOnShards(List<Long> userIds, Supplier<UserPo> action) {
+        for (Integer shard : shardStrategy.groupByShard(userIds).keySet()) {
+            UserPo userPo = ShardRouting.on(shard, action);
+            if (userPo != null) {
+                return userPo;
+            }
+        }
+        return null;
+    }
+
+    private Map<Integer, List<UserPo>> groupUsersByShard(List<UserPo> users) {
+        return users.stream().collect(Collectors.groupingBy(
+                userPo -> shardStrategy.shardOf(userPo.getUserId()), TreeMap::new, Collectors.toList()));
+    }
+
+    private <T> T query(Long userId, Supplier<T> action) {
+        return ShardRouting.on(shardStrategy.shardOf(userId), action);
+    }
+
+    private void execute(Long userId, Runnable action) {
+        ShardRouting.on(shardStrategy.shardOf(userId), () -> {
+            action.run();
+            return null;
+        });
+    }
+}
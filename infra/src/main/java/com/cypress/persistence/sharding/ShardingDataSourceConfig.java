@@ -0,0 +1,71 @@
+package com.cypress.persistence.sharding;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户分库分表数据源配置，datasource.sharding.enabled=true 时生效
+ * 全局库沿用 spring.datasource 配置，存放全局索引表；每个分片复制全局库连接池配置，只替换连接地址和账号
+ * 分片的顺序即分片序号，分片数必须是2的幂；上线后只能在末尾追加同样数量的分片来翻倍扩容，不能调整顺序
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.sharding", name = "enabled", havingValue = "true")
+public class ShardingDataSourceConfig {
+
+    // 分片连接地址，多个以逗号分隔
+    @Value("${datasource.sharding.shard-urls:}")
+    private String[] shardUrls;
+
+    @Value("${datasource.sharding.shard-username:${spring.datasource.username:}}")
+    private String shardUsername;
+
+    @Value("${datasource.sharding.shard-password:${spring.datasource.password:}}")
+    private String shardPassword;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource globalDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(HikariDataSource globalDataSource) {
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (String url : shardUrls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            globalDataSource.copyStateTo(config);
+            config.setJdbcUrl(url.trim());
+            config.setUsername(shardUsername);
+            config.setPassword(shardPassword);
+            config.setPoolName("shard-" + shards.size());
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(Metrics.globalRegistry));
+            shards.add(new HikariDataSource(config));
+        }
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("开启分片时必须配置 datasource.sharding.shard-urls");
+        }
+        return new ShardRoutingDataSource(globalDataSource, shards);
+    }
+
+    @Bean
+    public UserShardStrategy userShardStrategy(ShardRoutingDataSource dataSource) {
+        return new UserShardStrategy(dataSource.shardCount());
+    }
+}
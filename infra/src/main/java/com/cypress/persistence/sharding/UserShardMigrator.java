@@ -0,0 +1,87 @@
+package com.cypress.persistence.sharding;
+
+import com.cypress.persistence.dao.IUserDao;
+import com.cypress.persistence.dao.IUserIndexDao;
+import com.cypress.persistence.po.UserPo;
+import lombok.extern.slf4j.Slf4j;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 单表到分片的数据迁移
+ * 按主键分批读取全局库中原来的 users 表，复制到各分片后写入全局索引；
+ * 已写入索引的用户跳过，分片上已存在但未写入索引的副本（上次中断时留下）先删除再复制，因此可以重复执行
+ * 迁移期间应停止写入原表，完成后核对各分片行数之和与原表一致即可删除原表
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datasource.sharding", name = "enabled", havingValue = "true")
+public class UserShardMigrator {
+
+    @Autowired
+    private SqlSessionTemplate sqlSessionTemplate;
+
+    @Autowired
+    private IUserIndexDao userIndexDao;
+
+    @Autowired
+    private UserShardStrategy shardStrategy;
+
+    // 每批读取和写入的行数
+    @Value("${datasource.sharding.migrate-batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 迁移原表中尚未迁移的用户
+     * @return 本次迁移的用户数
+     */
+    public long migrateLegacyUsers() {
+        // 不在 ShardRouting.on 中执行时访问全局库
+        IUserDao userDao = sqlSessionTemplate.getMapper(IUserDao.class);
+        long start = System.currentTimeMillis();
+        long migrated = 0;
+        long afterId = 0;
+        List<UserPo> batch;
+        do {
+            batch = userDao.selectPage(afterId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+
+            List<Long> userIds = batch.stream().map(UserPo::getUserId).collect(Collectors.toList());
+            Set<Long> indexed = new HashSet<>(userIndexDao.selectIndexedUserIds(userIds));
+            List<UserPo> pending = batch.stream()
+                    .filter(userPo -> !indexed.contains(userPo.getUserId()))
+                    .collect(Collectors.toList());
+            if (pending.isEmpty()) {
+                continue;
+            }
+
+            Map<Integer, List<UserPo>> groups = pending.stream()
+                    .collect(Collectors.groupingBy(userPo -> shardStrategy.shardOf(userPo.getUserId())));
+            groups.forEach((shard, group) -> ShardRouting.on(shard, () -> {
+                List<Long> groupUserIds = group.stream().map(UserPo::getUserId).collect(Collectors.toList());
+                userDao.selectByUserIds(groupUserIds).forEach(copy -> userDao.deleteByUserId(copy.getUserId()));
+                userDao.batchInsert(group);
+                return null;
+            }));
+            // 写入索引后迁移才生效
+            userIndexDao.batchInsert(pending);
+            migrated += pending.size();
+        } while (batch.size() == batchSize);
+
+        log.info("单表用户迁移到分片完成，迁移用户数：{}，分片数：{}，耗时：{}ms",
+                migrated, shardStrategy.shardCount(), System.currentTimeMillis() - start);
+        return migrated;
+    }
+}
@@ -0,0 +1,67 @@
+package com.cypress.persistence.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 用户分片规则
+ * userId先散列到固定的 SLOTS 个槽位，再按槽位对分片数取模分配给各分片；
+ * 雪花ID低位是序列号，低并发时大多为0，直接对userId取模会集中到少数分片，因此先做散列
+ * 分片数必须是2的幂，从N翻倍到2N时分片i上的槽位只会留在分片i或迁往新分片i+N，
+ * 只需把每个分片中 slot % 2N == i + N 的一半数据迁移到对应的新分片，已有分片之间不需要迁移
+ */
+public final class UserShardStrategy {
+
+    public static final int SLOTS = 1024;
+
+    private final int shardCount;
+
+    public UserShardStrategy(int shardCount) {
+        if (shardCount < 1 || shardCount > SLOTS || Integer.bitCount(shardCount) != 1) {
+            throw new IllegalArgumentException("分片数必须是1到" + SLOTS + "之间的2的幂：" + shardCount);
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * 计算userId所在的分片
+     * @param userId 用户ID
+     * @return 分片序号
+     */
+    public int shardOf(long userId) {
+        return slotOf(userId) % shardCount;
+    }
+
+    /**
+     * 按分片对userId分组，分片序号升序
+     * @param userIds 用户ID集合
+     * @return 分片序号到该分片上userId的映射
+     */
+    public Map<Integer, List<Long>> groupByShard(Collection<Long> userIds) {
+        Map<Integer, List<Long>> groups = new TreeMap<>();
+        for (Long userId : userIds) {
+            groups.computeIfAbsent(shardOf(userId), shard -> new ArrayList<>()).add(userId);
+        }
+        return groups;
+    }
+
+    /**
+     * 使用MurmurHash3的64位混合函数散列，槽位一经确定不能修改
+     */
+    static int slotOf(long userId) {
+        long h = userId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) SLOTS);
+    }
+}
@@ -0,0 +1,124 @@
+package com.cypress.persistence.writer;
+
+import com.cypress.persistence.cache.UserProfileCache;
+import com.cypress.persistence.dao.IUserDao;
+import com.cypress.persistence.po.UserPo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 最后登录时间异步写入器
+ * 登录时只把时间记入内存，同一用户只保留最新的时间；
+ * 按固定间隔或累积到批量阈值时合并成一条多行UPDATE写入数据库，关闭时写完剩余数据
+ */
+@Slf4j
+@Component
+public class LastLoginTimeWriter implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private IUserDao userDao;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    // 定时刷新间隔（毫秒）
+    @Value("${user.last-login.flush-interval-ms:1000}")
+    private long flushIntervalMillis;
+
+    // 单条UPDATE最多包含的用户数，待写入数量达到该值时立即刷新
+    @Value("${user.last-login.batch-size:500}")
+    private int batchSize;
+
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public void afterPropertiesSet() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("last-login-writer-"));
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(flushIntervalMillis * 2, TimeUnit.MILLISECONDS);
+        flushQuietly();
+    }
+
+    /**
+     * 记录用户最后登录时间
+     * @param userId 用户ID
+     * @param lastLoginTime 最后登录时间
+     */
+    public void record(Long userId, LocalDateTime lastLoginTime) {
+        pending.merge(userId, lastLoginTime, (oldTime, newTime) -> newTime.isAfter(oldTime) ? newTime : oldTime);
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 将待写入的数据分批写入数据库
+     */
+    synchronized void flush() {
+        flushRequested.set(false);
+        while (!pending.isEmpty()) {
+            List<UserPo> batch = new ArrayList<>(batchSize);
+            for (Long userId : pending.keySet()) {
+                // remove拿到的一定是当前最新的时间，之后再记录的时间留给下一批
+                LocalDateTime lastLoginTime = pending.remove(userId);
+                if (lastLoginTime != null) {
+                    UserPo userPo = new UserPo();
+                    userPo.setUserId(userId);
+                    userPo.setLastLoginTime(lastLoginTime);
+                    batch.add(userPo);
+                }
+                if (batch.size() >= batchSize) {
+                    break;
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            write(batch);
+        }
+    }
+
+    private void write(List<UserPo> batch) {
+        try {
+            userDao.batchUpdateLastLoginTime(batch);
+            userProfileCache.evictAll(batch.stream().map(UserPo::getUserId).collect(Collectors.toList()));
+        } catch (Exception e) {
+            // 写入失败时放回队列等待下次重试，期间的新记录会与之合并
+            log.warn("批量写入最后登录时间失败，数量：{}", batch.size(), e);
+            batch.forEach(userPo -> pending.merge(userPo.getUserId(), userPo.getLastLoginTime(),
+                    (oldTime, newTime) -> newTime.isAfter(oldTime) ? newTime : oldTime));
+            throw e;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // 异常已记录，保持定时任务继续运行
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- 线上MySQL的 users 表结构变更，按版本号顺序手工执行一次
+-- 压测库 loadtest-schema.sql 已包含以下索引
+
+-- 手机号唯一索引
+-- 注册时的 existsByPhone 检查与写入之间存在并发窗口，由这个索引兜底；
+-- 批量导入从检查点继续时，上次已写入但未保存检查点的行依靠它按手机号重复跳过，缺少时会重复导入
+-- 执行前确认没有重复的手机号：
+--   SELECT phone, COUNT(*) FROM users WHERE phone IS NOT NULL GROUP BY phone HAVING COUNT(*) > 1;
+ALTER TABLE users ADD UNIQUE INDEX uk_users_phone (phone);
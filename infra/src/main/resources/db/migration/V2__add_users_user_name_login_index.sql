@@ -0,0 +1,12 @@
+-- 用户名登录候选查询的联合索引
+-- findAuthByUsername 按 user_name 过滤后 ORDER BY status DESC, last_login_time DESC LIMIT，
+-- 走这个索引时按索引顺序读取前几行即可，不需要读出全部同名用户再排序；
+-- 以 user_name 开头，同样服务其他按用户名的等值查询
+ALTER TABLE users ADD INDEX idx_users_user_name_status_login (user_name, status, last_login_time);
+
+-- 新索引覆盖了只有 user_name 的单列索引，可以删除旧索引；各环境的索引名不一定相同，先查出实际名称：
+--   SELECT INDEX_NAME FROM information_schema.STATISTICS
+--   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users'
+--   GROUP BY INDEX_NAME HAVING COUNT(*) = 1 AND MAX(COLUMN_NAME) = 'user_name';
+-- 确认后再执行，例如：
+--   ALTER TABLE users DROP INDEX idx_users_user_name;
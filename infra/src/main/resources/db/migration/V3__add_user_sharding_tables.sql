@@ -0,0 +1,38 @@
+-- 用户分库分表（datasource.sharding.enabled=true）所需的表结构，开启分片前手工执行
+-- 压测库 loadtest-schema.sql 已包含以下表
+
+-- 在全局库（spring.datasource）上执行：全局索引表，按手机号、邮箱、用户名定位userId
+CREATE TABLE IF NOT EXISTS user_index (
+    user_id   BIGINT       NOT NULL PRIMARY KEY,
+    phone     VARCHAR(20),
+    email     VARCHAR(100),
+    user_name VARCHAR(50),
+    UNIQUE KEY uk_user_index_phone (phone),
+    KEY idx_user_index_email (email),
+    KEY idx_user_index_user_name (user_name)
+);
+
+-- 在每个分片（datasource.sharding.shard-urls）上执行：与单库的 users 表结构和索引一致
+-- 手机号唯一性由全局索引表保证，分片内的唯一索引只防止同一分片内重复
+CREATE TABLE IF NOT EXISTS users (
+    id              BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    user_id         BIGINT       NOT NULL,
+    phone           VARCHAR(20),
+    password        VARCHAR(100),
+    email           VARCHAR(100),
+    user_name       VARCHAR(50),
+    age             INT,
+    gender          INT,
+    avatar          VARCHAR(255),
+    bio             VARCHAR(500),
+    signature       VARCHAR(255),
+    status          INT,
+    role            INT,
+    create_time     DATETIME,
+    update_time     DATETIME,
+    last_login_time DATETIME,
+    UNIQUE KEY uk_users_user_id (user_id),
+    UNIQUE KEY uk_users_phone (phone),
+    KEY idx_users_email (email),
+    KEY idx_users_user_name_status_login (user_name, status, last_login_time)
+);
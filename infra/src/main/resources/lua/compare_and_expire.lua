@@ -0,0 +1,7 @@
+-- 仅当键的值仍为本节点持有的令牌时续期
+-- KEYS[1] 租约键
+-- ARGV[1] 持有者令牌, ARGV[2] 有效期（毫秒）
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,6 @@
+-- 保存验证码并重置尝试次数
+-- KEYS[1] 验证码键, KEYS[2] 尝试次数键（两个键带相同的哈希标签）
+-- ARGV[1] 验证码, ARGV[2] 有效期（毫秒）
+redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+redis.call('DEL', KEYS[2])
+return 1
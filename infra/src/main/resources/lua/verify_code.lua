@@ -0,0 +1,31 @@
+-- 原子地校验并消费验证码
+-- KEYS[1] 验证码键, KEYS[2] 尝试次数键（两个键带相同的哈希标签）
+-- ARGV[1] 提交的验证码, ARGV[2] 最大错误次数, ARGV[3] 尝试次数有效期（毫秒）
+-- 返回值：0-已过期 1-成功 2-错误 3-错误次数过多
+local maxAttempts = tonumber(ARGV[2])
+local attempts = tonumber(redis.call('GET', KEYS[2]) or '0')
+if attempts >= maxAttempts then
+    return 3
+end
+
+local stored = redis.call('GET', KEYS[1])
+if not stored then
+    return 0
+end
+
+if stored == ARGV[1] then
+    -- 验证成功后立即删除，防止验证码被重放
+    redis.call('DEL', KEYS[1], KEYS[2])
+    return 1
+end
+
+attempts = redis.call('INCR', KEYS[2])
+if attempts == 1 then
+    redis.call('PEXPIRE', KEYS[2], ARGV[3])
+end
+if attempts >= maxAttempts then
+    -- 错误次数达到上限，作废当前验证码
+    redis.call('DEL', KEYS[1])
+    return 3
+end
+return 2
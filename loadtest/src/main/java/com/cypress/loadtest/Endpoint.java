@@ -0,0 +1,34 @@
+package com.cypress.loadtest;
+
+/**
+ * 压测覆盖的接口
+ * 注册和验证码登录前会先请求验证码，这部分请求单独计入 send-code
+ */
+public enum Endpoint {
+    SEND_CODE("send-code"),
+    REGISTER("register"),
+    LOGIN_BY_PASSWORD("login-by-password"),
+    LOGIN_BY_CODE("login-by-code"),
+    ME("me"),
+    GET_USER("get-user"),
+    UPDATE_USER("update-user");
+
+    private final String label;
+
+    Endpoint(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static Endpoint of(String label) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.label.equals(label)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("未知的接口：" + label);
+    }
+}
@@ -0,0 +1,84 @@
+package com.cypress.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测结果，按接口输出吞吐量和延迟分位数（毫秒）
+ */
+public class LatencyReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<Endpoint, Histogram> histograms;
+    private final Map<Endpoint, LongAdder> errors;
+    private final double elapsedSeconds;
+
+    public LatencyReport(Map<Endpoint, Histogram> histograms, Map<Endpoint, LongAdder> errors, long elapsedNanos) {
+        this.histograms = histograms;
+        this.errors = errors;
+        this.elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%-20s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50", "p90", "p99", "p99.9", "max");
+        histograms.forEach((endpoint, histogram) -> {
+            if (histogram.getTotalCount() == 0) {
+                return;
+            }
+            out.printf("%-20s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint.getLabel(),
+                    histogram.getTotalCount(),
+                    errors.get(endpoint).sum(),
+                    histogram.getTotalCount() / elapsedSeconds,
+                    millis(histogram.getValueAtPercentile(PERCENTILES[0])),
+                    millis(histogram.getValueAtPercentile(PERCENTILES[1])),
+                    millis(histogram.getValueAtPercentile(PERCENTILES[2])),
+                    millis(histogram.getValueAtPercentile(PERCENTILES[3])),
+                    millis(histogram.getMaxValue()));
+        });
+    }
+
+    /**
+     * 以JSON格式写出，便于不同版本之间对比
+     */
+    public void writeJson(File file) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("elapsedSeconds", elapsedSeconds);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        histograms.forEach((endpoint, histogram) -> {
+            if (histogram.getTotalCount() == 0) {
+                return;
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("requests", histogram.getTotalCount());
+            item.put("errors", errors.get(endpoint).sum());
+            item.put("throughput", histogram.getTotalCount() / elapsedSeconds);
+            for (double percentile : PERCENTILES) {
+                item.put(label(percentile), millis(histogram.getValueAtPercentile(percentile)));
+            }
+            item.put("max", millis(histogram.getMaxValue()));
+            endpoints.put(endpoint.getLabel(), item);
+        });
+        result.put("endpoints", endpoints);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, result);
+    }
+
+    private static String label(double percentile) {
+        return percentile == Math.rint(percentile) ? "p" + (int) percentile : "p" + percentile;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
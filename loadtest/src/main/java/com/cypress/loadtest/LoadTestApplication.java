@@ -0,0 +1,123 @@
+package com.cypress.loadtest;
+
+import com.cypress.Application;
+import com.cypress.persistence.cache.UserExistenceFilter;
+import com.cypress.persistence.sharding.UserShardMigrator;
+import com.cypress.utils.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 压测入口
+ * 在同一进程内启动内置Redis和以H2（MySQL兼容模式）为存储的完整应用，预置用户后按配置的并发和占比发起混合请求，
+ * 全程不依赖外部服务，可离线运行；限流在压测中关闭
+ * 用法：java -jar loadtest.jar --users=1000000 --concurrency=64 --warmup=10 --duration=60
+ *      --mix=register=2,login-by-password=10,login-by-code=8,me=40,get-user=35,update-user=5 [--shards=4]
+ * 其他 --key=value 参数原样传给应用，可用于覆盖应用配置
+ */
+@Slf4j
+public class LoadTestApplication {
+
+    private static final String RESULT_FILE = "loadtest-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> applicationArgs = new ArrayList<>();
+        LoadTestOptions options = LoadTestOptions.parse(args, applicationArgs);
+
+        RedisServer redisServer = RedisServer.newRedisServer()
+                .port(options.getRedisPort())
+                .setting("bind 127.0.0.1")
+                .setting("save \"\"")
+                .setting("appendonly no")
+                .build();
+        redisServer.start();
+
+        ConfigurableApplicationContext context = null;
+        try {
+            context = new SpringApplicationBuilder(Application.class)
+                    .run(applicationArgs(options, applicationArgs));
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+            UserSeeder seeder = new UserSeeder(context.getBean(DataSource.class), options.getUsers(), options.getUsernameCollisions());
+            seeder.seed();
+            // 分库分表时种子数据写入全局库的单表，再迁移到各分片
+            context.getBeanProvider(UserShardMigrator.class).ifAvailable(UserShardMigrator::migrateLegacyUsers);
+            // 种子数据绕过仓库直接写入，需要重建存在性过滤器
+            context.getBean(UserExistenceFilter.class).rebuild();
+
+            // 为随机抽取的用户签发令牌，供需要登录的接口使用
+            JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+            int poolSize = Math.min(options.getTokenPoolSize(), options.getUsers());
+            int[] tokenUserIndexes = new int[poolSize];
+            String[] tokens = new String[poolSize];
+            for (int i = 0; i < poolSize; i++) {
+                tokenUserIndexes[i] = ThreadLocalRandom.current().nextInt(options.getUsers());
+                tokens[i] = jwtUtil.generateToken(UserSeeder.userId(tokenUserIndexes[i]));
+            }
+
+            LatencyReport report = new WorkloadDriver("http://127.0.0.1:" + port, options, seeder, tokenUserIndexes, tokens).run();
+            report.print(System.out);
+            report.writeJson(new File(RESULT_FILE));
+            log.info("压测结果已写入 {}", RESULT_FILE);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            redisServer.stop();
+        }
+    }
+
+    /**
+     * 以命令行参数的形式覆盖应用配置，优先级高于 application.yml；
+     * 用户传入的同名参数替换默认值，重复的命令行参数会被Spring拼接成逗号分隔的值
+     */
+    private static String[] applicationArgs(LoadTestOptions options, List<String> passThrough) {
+        Map<String, String> args = new LinkedHashMap<>();
+        args.put("server.port", "0");
+        args.put("management.server.port", "0");
+        args.put("spring.datasource.url", "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        args.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        args.put("spring.datasource.username", "sa");
+        args.put("spring.datasource.password", "");
+        args.put("spring.sql.init.mode", "always");
+        args.put("spring.sql.init.schema-locations", "classpath:loadtest-schema.sql");
+        args.put("spring.redis.host", "127.0.0.1");
+        args.put("spring.redis.port", String.valueOf(options.getRedisPort()));
+        args.put("spring.redis.password", "");
+        args.put("rate-limit.enabled", "false");
+        args.put("logging.level.root", "WARN");
+        args.put("logging.level.com.cypress.loadtest", "INFO");
+        if (options.getShards() > 0) {
+            List<String> shardUrls = new ArrayList<>();
+            for (int i = 0; i < options.getShards(); i++) {
+                shardUrls.add("jdbc:h2:mem:loadtest_shard" + i + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+                        + "INIT=RUNSCRIPT FROM 'classpath:loadtest-schema.sql'");
+            }
+            args.put("datasource.sharding.enabled", "true");
+            args.put("datasource.sharding.shard-urls", String.join(",", shardUrls));
+            args.put("logging.level.com.cypress.persistence.sharding", "INFO");
+        }
+
+        List<String> result = new ArrayList<>();
+        for (String arg : passThrough) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                args.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                result.add(arg);
+            }
+        }
+        args.forEach((key, value) -> result.add("--" + key + "=" + value));
+        return result.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,108 @@
+package com.cypress.loadtest;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行以 --key=value 形式传入，未识别的参数原样交给Spring应用
+ */
+@Data
+public class LoadTestOptions {
+
+    /** 预置用户数 */
+    private int users = 1_000_000;
+
+    /** 同名用户的平均数量，用户名按热度分布，热门用户名的重名数远高于平均值 */
+    private int usernameCollisions = 20;
+
+    /** 并发请求数 */
+    private int concurrency = 64;
+
+    /** 预热时长，预热期间的请求不计入结果 */
+    private Duration warmup = Duration.ofSeconds(10);
+
+    /** 统计时长 */
+    private Duration duration = Duration.ofSeconds(60);
+
+    /** 预先签发令牌的用户数，/me、GET、PATCH 请求在这些用户中随机选择 */
+    private int tokenPoolSize = 10_000;
+
+    /** 各接口请求占比 */
+    private Map<Endpoint, Integer> mix = defaultMix();
+
+    /** Redis端口 */
+    private int redisPort = 16379;
+
+    /** 用户表分片数，大于0时为每个分片建一个H2内存库并开启分库分表，种子数据通过单表迁移写入分片 */
+    private int shards = 0;
+
+    public static LoadTestOptions parse(String[] args, java.util.List<String> passThrough) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                passThrough.add(arg);
+                continue;
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "users":
+                    options.setUsers(Integer.parseInt(value));
+                    break;
+                case "username-collisions":
+                    options.setUsernameCollisions(Integer.parseInt(value));
+                    break;
+                case "concurrency":
+                    options.setConcurrency(Integer.parseInt(value));
+                    break;
+                case "warmup":
+                    options.setWarmup(Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                case "duration":
+                    options.setDuration(Duration.ofSeconds(Long.parseLong(value)));
+                    break;
+                case "token-pool-size":
+                    options.setTokenPoolSize(Integer.parseInt(value));
+                    break;
+                case "mix":
+                    options.setMix(parseMix(value));
+                    break;
+                case "redis-port":
+                    options.setRedisPort(Integer.parseInt(value));
+                    break;
+                case "shards":
+                    options.setShards(Integer.parseInt(value));
+                    break;
+                default:
+                    passThrough.add(arg);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * 解析形如 register=5,login-by-password=20 的请求占比
+     */
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String item : value.split(",")) {
+            String[] parts = item.trim().split("=");
+            mix.put(Endpoint.of(parts[0]), Integer.parseInt(parts[1]));
+        }
+        return mix;
+    }
+
+    private static Map<Endpoint, Integer> defaultMix() {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        mix.put(Endpoint.REGISTER, 2);
+        mix.put(Endpoint.LOGIN_BY_PASSWORD, 10);
+        mix.put(Endpoint.LOGIN_BY_CODE, 8);
+        mix.put(Endpoint.ME, 40);
+        mix.put(Endpoint.GET_USER, 35);
+        mix.put(Endpoint.UPDATE_USER, 5);
+        return mix;
+    }
+}
@@ -0,0 +1,135 @@
+package com.cypress.loadtest;
+
+import com.cypress.utils.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 预置用户数据
+ * 用户的各字段都由序号推导，压测时不需要回查数据库即可构造请求；
+ * 用户名按热度分布，少数热门用户名有大量重名用户，用于覆盖用户名登录的多候选校验
+ * 密码只有少量几种，避免逐条计算BCrypt，同时保证同名候选中多数密码不匹配
+ */
+@Slf4j
+public class UserSeeder {
+
+    /** 预置用户的userId起始值，远小于雪花ID，与注册产生的用户不会冲突 */
+    static final long BASE_USER_ID = 1_000_000_000L;
+
+    /** 密码种类数，第i个用户的密码为 PASSWORD_PREFIX + (i % PASSWORD_VARIANTS) */
+    static final int PASSWORD_VARIANTS = 16;
+    static final String PASSWORD_PREFIX = "LoadTest@";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "insert into users (user_id, phone, password, email, user_name, age, gender, avatar, "
+            + "bio, signature, status, role, create_time, update_time, last_login_time) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final int users;
+    private final int distinctUsernames;
+
+    public UserSeeder(DataSource dataSource, int users, int usernameCollisions) {
+        this.dataSource = dataSource;
+        this.users = users;
+        this.distinctUsernames = Math.max(1, users / Math.max(1, usernameCollisions));
+    }
+
+    static long userId(int index) {
+        return BASE_USER_ID + index;
+    }
+
+    static String phone(int index) {
+        return "139" + String.format("%08d", index);
+    }
+
+    static String password(int index) {
+        return PASSWORD_PREFIX + (index % PASSWORD_VARIANTS);
+    }
+
+    /**
+     * 第i个用户的用户名，同一序号始终得到相同结果
+     * 取均匀随机数的平方映射到用户名下标，越靠前的用户名越热门
+     */
+    String username(int index) {
+        double r = new Random(index * 0x9E3779B97F4A7C15L).nextDouble();
+        return "user_" + (int) (distinctUsernames * r * r);
+    }
+
+    /**
+     * 并行写入全部用户
+     */
+    public void seed() throws Exception {
+        long start = System.currentTimeMillis();
+        String[] passwordHashes = new String[PASSWORD_VARIANTS];
+        for (int i = 0; i < PASSWORD_VARIANTS; i++) {
+            passwordHashes[i] = PasswordEncoder.encode(PASSWORD_PREFIX + i);
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            int chunk = (users + threads - 1) / threads;
+            for (int from = 0; from < users; from += chunk) {
+                int begin = from;
+                int end = Math.min(users, from + chunk);
+                futures.add(executor.submit(() -> {
+                    insertRange(begin, end, passwordHashes);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("预置用户完成，数量：{}，耗时：{}ms", users, System.currentTimeMillis() - start);
+    }
+
+    private void insertRange(int begin, int end, String[] passwordHashes) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            connection.setAutoCommit(false);
+            for (int i = begin; i < end; i++) {
+                statement.setLong(1, userId(i));
+                statement.setString(2, phone(i));
+                statement.setString(3, passwordHashes[i % PASSWORD_VARIANTS]);
+                statement.setString(4, "user" + i + "@loadtest.local");
+                statement.setString(5, username(i));
+                statement.setInt(6, 18 + i % 50);
+                statement.setInt(7, i % 3);
+                statement.setString(8, "https://example.com/avatar/" + i + ".png");
+                statement.setString(9, "load test user " + i);
+                statement.setString(10, "signature " + i);
+                statement.setInt(11, 1);
+                statement.setInt(12, 0);
+                statement.setTimestamp(13, now);
+                statement.setTimestamp(14, now);
+                statement.setTimestamp(15, null);
+                statement.addBatch();
+                if ((i - begin + 1) % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+}
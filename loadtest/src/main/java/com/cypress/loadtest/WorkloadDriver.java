@@ -0,0 +1,211 @@
+package com.cypress.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 混合负载驱动
+ * 固定数量的工作线程按配置的占比随机选择接口并同步发送请求（闭环模型），
+ * 预热结束后清空统计，只记录统计时长内的请求
+ */
+@Slf4j
+public class WorkloadDriver {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final String REGISTER_PHONE_PREFIX = "150";
+
+    private final String baseUrl;
+    private final LoadTestOptions options;
+    private final UserSeeder seeder;
+    private final int[] tokenUserIndexes;
+    // 更新资料会吊销旧令牌，返回的新令牌写回同一位置
+    private final AtomicReferenceArray<String> tokens;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Endpoint[] weightedEndpoints;
+    private final Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private final AtomicLong registerSequence = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    public WorkloadDriver(String baseUrl, LoadTestOptions options, UserSeeder seeder,
+                          int[] tokenUserIndexes, String[] tokens) {
+        this.baseUrl = baseUrl;
+        this.options = options;
+        this.seeder = seeder;
+        this.tokenUserIndexes = tokenUserIndexes;
+        this.tokens = new AtomicReferenceArray<>(tokens);
+        this.weightedEndpoints = options.getMix().entrySet().stream()
+                .flatMap(entry -> java.util.Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+                .toArray(Endpoint[]::new);
+        for (Endpoint endpoint : Endpoint.values()) {
+            histograms.put(endpoint, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    /**
+     * 运行预热和统计两个阶段
+     * @return 统计阶段的结果
+     */
+    public LatencyReport run() throws InterruptedException {
+        if (weightedEndpoints.length == 0) {
+            throw new IllegalArgumentException("请求占比不能全部为0");
+        }
+        Thread[] workers = new Thread[options.getConcurrency()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::work, "loadtest-worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        log.info("预热 {} 秒，并发数：{}", options.getWarmup().getSeconds(), workers.length);
+        Thread.sleep(options.getWarmup().toMillis());
+        histograms.values().forEach(Histogram::reset);
+        errors.values().forEach(LongAdder::reset);
+
+        log.info("统计 {} 秒", options.getDuration().getSeconds());
+        long start = System.nanoTime();
+        Thread.sleep(options.getDuration().toMillis());
+        long elapsedNanos = System.nanoTime() - start;
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        return new LatencyReport(histograms, errors, elapsedNanos);
+    }
+
+    private void work() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            Endpoint endpoint = weightedEndpoints[random.nextInt(weightedEndpoints.length)];
+            try {
+                execute(endpoint, random);
+            } catch (Exception e) {
+                // 连接失败等异常计为错误，不中断压测
+                errors.get(endpoint).increment();
+            }
+        }
+    }
+
+    private void execute(Endpoint endpoint, ThreadLocalRandom random) throws Exception {
+        int userIndex = random.nextInt(options.getUsers());
+        switch (endpoint) {
+            case SEND_CODE:
+                sendCode(UserSeeder.phone(userIndex));
+                break;
+            case REGISTER: {
+                String phone = REGISTER_PHONE_PREFIX + String.format("%08d", registerSequence.incrementAndGet());
+                String code = sendCode(phone);
+                call(endpoint, post("/api/user/register", Map.of("phone", phone, "code", code), null));
+                break;
+            }
+            case LOGIN_BY_PASSWORD: {
+                // 一半按手机号登录，一半按用户名登录；热门用户名的目标用户可能不在候选范围内，此时返回密码错误并计为错误
+                String loginKey = random.nextBoolean() ? UserSeeder.phone(userIndex) : seeder.username(userIndex);
+                call(endpoint, post("/api/user/login-by-password",
+                        Map.of("loginKey", loginKey, "password", UserSeeder.password(userIndex)), null));
+                break;
+            }
+            case LOGIN_BY_CODE: {
+                String phone = UserSeeder.phone(userIndex);
+                String code = sendCode(phone);
+                call(endpoint, post("/api/user/login-by-code", Map.of("phone", phone, "code", code), null));
+                break;
+            }
+            case ME: {
+                int slot = random.nextInt(tokens.length());
+                call(endpoint, get("/api/user/me", tokens.get(slot)));
+                break;
+            }
+            case GET_USER: {
+                int slot = random.nextInt(tokens.length());
+                call(endpoint, get("/api/user/" + UserSeeder.userId(userIndex), tokens.get(slot)));
+                break;
+            }
+            case UPDATE_USER: {
+                int slot = random.nextInt(tokens.length());
+                long userId = UserSeeder.userId(tokenUserIndexes[slot]);
+                String token = tokens.get(slot);
+                String body = call(endpoint, request("/api/user/" + userId, token)
+                        .method("PATCH", json(Map.of("bio", "updated at " + System.nanoTime())))
+                        .build());
+                JsonNode newToken = body == null ? null : objectMapper.readTree(body).path("data").get("newToken");
+                if (newToken != null && newToken.isTextual()) {
+                    tokens.compareAndSet(slot, token, newToken.asText());
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("未支持的接口：" + endpoint);
+        }
+    }
+
+    private String sendCode(String phone) throws Exception {
+        String body = call(Endpoint.SEND_CODE, request("/api/user/send-code?phone=" + phone, null)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build());
+        JsonNode data = body == null ? null : objectMapper.readTree(body).get("data");
+        return data == null ? "" : data.asText();
+    }
+
+    /**
+     * 发送请求并记录耗时，非200响应计为错误
+     * @return 成功时的响应体，失败时返回null
+     */
+    private String call(Endpoint endpoint, HttpRequest request) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        histograms.get(endpoint).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+        if (response.statusCode() != 200) {
+            errors.get(endpoint).increment();
+            return null;
+        }
+        return response.body();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest post(String path, Map<String, String> body, String token) throws Exception {
+        return request(path, token).POST(json(body)).build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpRequest.BodyPublisher json(Map<String, String> body) throws Exception {
+        return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+    }
+}
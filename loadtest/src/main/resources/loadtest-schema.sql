@@ -0,0 +1,36 @@
+-- 压测用用户表，字段与 IUserDao.xml 一致，索引与线上保持一致（线上的结构变更见 infra 模块 db/migration）
+CREATE TABLE IF NOT EXISTS users (
+    id              BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    user_id         BIGINT       NOT NULL,
+    phone           VARCHAR(20),
+    password        VARCHAR(100),
+    email           VARCHAR(100),
+    user_name       VARCHAR(50),
+    age             INT,
+    gender          INT,
+    avatar          VARCHAR(255),
+    bio             VARCHAR(500),
+    signature       VARCHAR(255),
+    status          INT,
+    role            INT,
+    create_time     DATETIME,
+    update_time     DATETIME,
+    last_login_time DATETIME
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_users_user_id ON users (user_id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_users_phone ON users (phone);
+CREATE INDEX IF NOT EXISTS idx_users_email ON users (email);
+CREATE INDEX IF NOT EXISTS idx_users_user_name_status_login ON users (user_name, status, last_login_time);
+
+-- 分库分表时的全局索引表，位于全局库；未开启分片时不使用
+CREATE TABLE IF NOT EXISTS user_index (
+    user_id   BIGINT       NOT NULL PRIMARY KEY,
+    phone     VARCHAR(20),
+    email     VARCHAR(100),
+    user_name VARCHAR(50)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_user_index_phone ON user_index (phone);
+CREATE INDEX IF NOT EXISTS idx_user_index_email ON user_index (email);
+CREATE INDEX IF NOT EXISTS idx_user_index_user_name ON user_index (user_name);